@@ -0,0 +1,115 @@
+package net.dmitrykornilov.pets.benchmark;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import net.dmitrykornilov.pets.model.Appointment;
+import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.model.Vet;
+import net.dmitrykornilov.pets.service.PetsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Booking throughput with {@code vetCount} vets booked concurrently from several threads.
+ * <p>
+ * {@code book} gives every vet consecutive half-hour slots, so nearly every booking succeeds and pays for the
+ * conflict check, the vet's and the pet's locks and the insert. {@code bookContended} books random slots within
+ * a single day, so as the day fills up more and more attempts are rejected from memory.
+ * {@code findNextFreeSlot} never touches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class AppointmentBenchmark {
+    private static final Duration SLOT = Duration.ofMinutes(30);
+
+    @Param({"5000"})
+    int vetCount;
+
+    private ConfigurableApplicationContext context;
+
+    private PetsService petsService;
+
+    private LocalDateTime firstDay;
+
+    private int firstVetId;
+
+    private int maxPetId;
+
+    private AtomicIntegerArray nextSlot;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.start(WebApplicationType.NONE);
+        BenchmarkData.seed(context, 5000, 2);
+        firstVetId = BenchmarkData.maxId(context, "vets") + 1;
+        BenchmarkData.seedVets(context, vetCount);
+        petsService = context.getBean(PetsService.class);
+        maxPetId = BenchmarkData.maxId(context, "pets");
+        firstDay = LocalDateTime.now().plusYears(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
+        nextSlot = new AtomicIntegerArray(vetCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean book() {
+        int vet = ThreadLocalRandom.current().nextInt(vetCount);
+        LocalDateTime start = firstDay.plus(SLOT.multipliedBy(nextSlot.getAndIncrement(vet)));
+        return petsService.bookAppointment(appointment(firstVetId + vet, start));
+    }
+
+    @Benchmark
+    public boolean bookContended() {
+        var random = ThreadLocalRandom.current();
+        LocalDateTime start = firstDay.minusDays(1).plus(SLOT.multipliedBy(random.nextInt(48)));
+        return petsService.bookAppointment(appointment(firstVetId + random.nextInt(vetCount), start));
+    }
+
+    @Benchmark
+    public LocalDateTime findNextFreeSlot() {
+        var random = ThreadLocalRandom.current();
+        return petsService.findNextFreeSlot(firstVetId + random.nextInt(vetCount),
+                                            firstDay.plus(SLOT.multipliedBy(random.nextInt(100))), SLOT);
+    }
+
+    // detached references are enough: the insert only needs their ids
+    private Appointment appointment(int vetId, LocalDateTime start) {
+        var vet = new Vet();
+        vet.setId(vetId);
+        vet.setVersion(0);
+        var pet = new Pet();
+        pet.setId(ThreadLocalRandom.current().nextInt(1, maxPetId + 1));
+        pet.setVersion(0);
+        var appointment = new Appointment();
+        appointment.setVet(vet);
+        appointment.setPet(pet);
+        appointment.setStart(start);
+        appointment.setEnd(start.plus(SLOT));
+        return appointment;
+    }
+}
@@ -0,0 +1,130 @@
+package net.dmitrykornilov.pets.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.dmitrykornilov.pets.PetClinicApplication;
+import net.dmitrykornilov.pets.model.Owner;
+import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.model.PetType;
+import net.dmitrykornilov.pets.service.OwnerSearchIndex;
+import net.dmitrykornilov.pets.service.VetSpecialtyIndex;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Fixtures shared by the benchmarks: detached owner graphs built in memory and a running application
+ * whose in-memory HSQLDB is seeded on top of the sample data.
+ */
+final class BenchmarkData {
+    private static final String[] PET_NAMES = {"Leo", "Basil", "Rosy", "Jewel", "Iggy", "George", "Samantha", "Max"};
+
+    private BenchmarkData() {
+    }
+
+    static Owner owner(int id, int petCount) {
+        var type = new PetType();
+        type.setId(1);
+        type.setName("cat");
+
+        var owner = new Owner();
+        owner.setId(id);
+        owner.setFirstName("George");
+        owner.setLastName("Franklin" + id);
+        owner.setAddress("110 W. Liberty St.");
+        owner.setCity("Madison");
+        owner.setTelephone("6085551023");
+        for (int i = 0; i < petCount; i++) {
+            var pet = new Pet();
+            pet.setId(id * 1000 + i);
+            pet.setName(PET_NAMES[i % PET_NAMES.length] + i);
+            pet.setBirthDate(LocalDate.of(2010, 1, 1).plusDays(i));
+            pet.setType(type);
+            owner.addPet(pet);
+        }
+        return owner;
+    }
+
+    static List<Owner> owners(int ownerCount, int petsPerOwner) {
+        List<Owner> owners = new ArrayList<>(ownerCount);
+        for (int i = 1; i <= ownerCount; i++) {
+            owners.add(owner(i, petsPerOwner));
+        }
+        return owners;
+    }
+
+    /**
+     * Start the application against a private in-memory database with caching off, so that the benchmarks
+     * measure the database path.
+     */
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... extraProperties) {
+        var application = new SpringApplication(PetClinicApplication.class);
+        application.setWebApplicationType(webApplicationType);
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:hsqldb:mem:benchmark",
+                "--spring.cache.type=none",
+                "--server.port=0",
+                "--logging.level.root=WARN"));
+        for (String property : extraProperties) {
+            args.add("--" + property);
+        }
+        return application.run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Insert {@code ownerCount} owners with {@code petsPerOwner} pets each using JDBC batches. Ids are assigned
+     * densely after the sample data, so that the benchmarks can pick random ids up to {@link #maxId}, and the id
+     * sequences are moved past them afterwards.
+     */
+    static void seed(ConfigurableApplicationContext context, int ownerCount, int petsPerOwner) {
+        var jdbc = context.getBean(JdbcTemplate.class);
+        int firstOwnerId = maxId(context, "owners") + 1;
+        List<Object[]> owners = new ArrayList<>(ownerCount);
+        for (int i = 0; i < ownerCount; i++) {
+            owners.add(new Object[] {firstOwnerId + i, "First" + i, "Last" + (i % 5000), i + " Main St.",
+                                     "City" + (i % 100), String.format("%010d", i)});
+        }
+        jdbc.batchUpdate("INSERT INTO owners (id, first_name, last_name, address, city, telephone) " +
+                         "VALUES (?, ?, ?, ?, ?, ?)", owners);
+
+        int petId = maxId(context, "pets") + 1;
+        List<Object[]> pets = new ArrayList<>(ownerCount * petsPerOwner);
+        for (int ownerId = firstOwnerId; ownerId < firstOwnerId + ownerCount; ownerId++) {
+            for (int i = 0; i < petsPerOwner; i++) {
+                pets.add(new Object[] {petId++, PET_NAMES[(ownerId + i) % PET_NAMES.length],
+                                       LocalDate.of(2015, 1, 1).plusDays(i), 1 + (ownerId + i) % 6, ownerId});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)", pets);
+
+        for (String table : List.of("owners", "pets")) {
+            jdbc.execute("ALTER SEQUENCE " + table + "_seq RESTART WITH " + (maxId(context, table) + 50));
+        }
+        // the seed bypasses the service, so the index has not seen it
+        context.getBean(OwnerSearchIndex.class).reload();
+    }
+
+    /**
+     * Insert {@code vetCount} vets with dense ids after the sample data using a JDBC batch, and move the vet id
+     * sequence past them.
+     */
+    static void seedVets(ConfigurableApplicationContext context, int vetCount) {
+        var jdbc = context.getBean(JdbcTemplate.class);
+        int firstVetId = maxId(context, "vets") + 1;
+        List<Object[]> vets = new ArrayList<>(vetCount);
+        for (int i = 0; i < vetCount; i++) {
+            vets.add(new Object[] {firstVetId + i, "First" + i, "Vet" + i});
+        }
+        jdbc.batchUpdate("INSERT INTO vets (id, first_name, last_name) VALUES (?, ?, ?)", vets);
+        jdbc.execute("ALTER SEQUENCE vets_seq RESTART WITH " + (maxId(context, "vets") + 50));
+        // the seed bypasses the service, so the index has not seen it
+        context.getBean(VetSpecialtyIndex.class).reload();
+    }
+
+    static int maxId(ConfigurableApplicationContext context, String table) {
+        return context.getBean(JdbcTemplate.class).queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+    }
+}
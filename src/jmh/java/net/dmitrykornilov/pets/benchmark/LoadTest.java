@@ -0,0 +1,201 @@
+package net.dmitrykornilov.pets.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Closed-loop HTTP load test comparing request handling on platform threads with virtual threads.
+ * <p>
+ * For each mode the application is started on a random port and seeded, then {@code concurrency} connections
+ * each send one request at a time for {@code duration} seconds against a mix of owner and pet reads.
+ * Throughput and latency percentiles are printed per mode. Virtual threads need Java 21; on older runtimes
+ * Spring Boot ignores {@code spring.threads.virtual.enabled} and both runs use the platform thread pool.
+ * <p>
+ * Options, with or without leading dashes: {@code concurrency=2000 duration=30 warmup=5 owners=10000
+ * modes=platform,virtual}
+ */
+public final class LoadTest {
+    // like RestApiBenchmark, measure request handling without the security filter chain: the default in-memory
+    // user is re-encoded with BCrypt on first login, which would otherwise dominate every request
+    private static final String WITHOUT_SECURITY = "spring.autoconfigure.exclude="
+            + "org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration,"
+            + "org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration,"
+            + "org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration,"
+            + "org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration";
+
+    public static void main(String[] args) throws Exception {
+        var options = Options.parse(args);
+        if (Runtime.version().feature() < 21) {
+            System.out.println("Java " + Runtime.version().feature() + " has no virtual threads, "
+                               + "the virtual mode runs on platform threads");
+        }
+        List<String> report = new ArrayList<>();
+        for (String mode : options.modes) {
+            try (ConfigurableApplicationContext context = BenchmarkData.start(WebApplicationType.SERVLET,
+                    "spring.threads.virtual.enabled=" + mode.equals("virtual"),
+                    "server.tomcat.max-connections=" + Math.max(8192, options.concurrency * 2),
+                    "server.tomcat.accept-count=" + options.concurrency,
+                    WITHOUT_SECURITY)) {
+                BenchmarkData.seed(context, options.owners, 2);
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                var target = new Target(URI.create("http://localhost:" + port + "/pets/api/"),
+                                        BenchmarkData.maxId(context, "owners"), BenchmarkData.maxId(context, "pets"));
+
+                var client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+                run(client, target, options.concurrency, Duration.ofSeconds(options.warmup));
+                Result result = run(client, target, options.concurrency, Duration.ofSeconds(options.duration));
+                report.add(result.format(mode));
+            }
+        }
+        System.out.printf("%-9s %10s %12s %9s %9s %9s %9s %8s%n",
+                          "mode", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors");
+        report.forEach(System.out::println);
+    }
+
+    private static Result run(HttpClient client, Target target, int concurrency, Duration duration) {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        var errors = new LongAdder();
+        List<Connection> connections = new ArrayList<>(concurrency);
+        List<CompletableFuture<Void>> done = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            var connection = new Connection(client, target, end, errors);
+            connections.add(connection);
+            done.add(connection.start());
+        }
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).join();
+        long elapsed = System.nanoTime() - start;
+
+        int total = connections.stream().mapToInt(connection -> connection.count).sum();
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Connection connection : connections) {
+            System.arraycopy(connection.latencies, 0, latencies, offset, connection.count);
+            offset += connection.count;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, elapsed, errors.sum());
+    }
+
+    private record Target(URI base, int maxOwnerId, int maxPetId) {
+        HttpRequest next() {
+            var random = ThreadLocalRandom.current();
+            String path = switch (random.nextInt(4)) {
+                case 0 -> "owners/" + random.nextInt(1, maxOwnerId + 1);
+                case 1 -> "owners?limit=20&after=" + random.nextInt(0, maxOwnerId);
+                case 2 -> "owners?lastName=Last" + random.nextInt(0, 5000);
+                default -> "pets/" + random.nextInt(1, maxPetId + 1);
+            };
+            return HttpRequest.newBuilder(base.resolve(path)).timeout(Duration.ofSeconds(60)).GET().build();
+        }
+    }
+
+    /**
+     * One simulated client: sends the next request as soon as the previous response arrived.
+     * Callbacks of one connection never overlap, so its latencies need no synchronization.
+     */
+    private static final class Connection {
+        private final HttpClient client;
+        private final Target target;
+        private final long end;
+        private final LongAdder errors;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private long[] latencies = new long[1024];
+        private int count;
+
+        Connection(HttpClient client, Target target, long end, LongAdder errors) {
+            this.client = client;
+            this.target = target;
+            this.end = end;
+            this.errors = errors;
+        }
+
+        CompletableFuture<Void> start() {
+            send();
+            return done;
+        }
+
+        private void send() {
+            long sent = System.nanoTime();
+            client.sendAsync(target.next(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long now = System.nanoTime();
+                        // 404 is expected for random ids and names that do not exist
+                        if (failure != null || (response.statusCode() >= 400 && response.statusCode() != 404)) {
+                            errors.increment();
+                        } else {
+                            record(now - sent);
+                        }
+                        if (now < end) {
+                            send();
+                        } else {
+                            done.complete(null);
+                        }
+                    });
+        }
+
+        private void record(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+    }
+
+    private record Result(long[] latencies, long elapsedNanos, long errors) {
+        String format(String mode) {
+            return String.format("%-9s %10d %12.1f %9.2f %9.2f %9.2f %9.2f %8d", mode, latencies.length,
+                                 latencies.length / (elapsedNanos / 1e9), percentile(0.50), percentile(0.90),
+                                 percentile(0.99), percentile(1.0), errors);
+        }
+
+        private double percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    private record Options(int concurrency, int duration, int warmup, int owners, List<String> modes) {
+        static Options parse(String[] args) {
+            int concurrency = 2000;
+            int duration = 30;
+            int warmup = 5;
+            int owners = 10000;
+            List<String> modes = List.of("platform", "virtual");
+            for (String arg : args) {
+                String[] option = arg.replaceFirst("^--", "").split("=", 2);
+                if (option.length != 2) {
+                    throw new IllegalArgumentException("Expected name=value but got " + arg);
+                }
+                switch (option[0]) {
+                    case "concurrency" -> concurrency = Integer.parseInt(option[1]);
+                    case "duration" -> duration = Integer.parseInt(option[1]);
+                    case "warmup" -> warmup = Integer.parseInt(option[1]);
+                    case "owners" -> owners = Integer.parseInt(option[1]);
+                    case "modes" -> modes = List.of(option[1].split(","));
+                    default -> throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            return new Options(concurrency, duration, warmup, owners, modes);
+        }
+    }
+}
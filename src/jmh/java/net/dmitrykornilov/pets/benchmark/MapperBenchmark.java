@@ -0,0 +1,64 @@
+package net.dmitrykornilov.pets.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.dmitrykornilov.pets.mapper.OwnerMapper;
+import net.dmitrykornilov.pets.mapper.OwnerMapperImpl;
+import net.dmitrykornilov.pets.mapper.PetMapperImpl;
+import net.dmitrykornilov.pets.model.Owner;
+import net.dmitrykornilov.pets.rest.dto.OwnerDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * MapStruct entity to DTO mapping of owner graphs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    @Param({"10", "1000"})
+    int petsPerOwner;
+
+    @Param({"1", "1000"})
+    int ownerCount;
+
+    private AnnotationConfigApplicationContext context;
+
+    private OwnerMapper ownerMapper;
+
+    private List<Owner> owners;
+
+    @Setup
+    public void setUp() {
+        // the generated mappers use Spring field injection, so let Spring wire them
+        context = new AnnotationConfigApplicationContext(PetMapperImpl.class, OwnerMapperImpl.class);
+        ownerMapper = context.getBean(OwnerMapper.class);
+        owners = BenchmarkData.owners(ownerCount, petsPerOwner);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<OwnerDto> toOwnerDtoCollection() {
+        return ownerMapper.toOwnerDtoCollection(owners);
+    }
+}
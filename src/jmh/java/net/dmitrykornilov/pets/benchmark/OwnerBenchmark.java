@@ -0,0 +1,57 @@
+package net.dmitrykornilov.pets.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.dmitrykornilov.pets.model.Owner;
+import net.dmitrykornilov.pets.model.Pet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pet accessors on owners with many pets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerBenchmark {
+    @Param({"1", "10", "1000"})
+    int petCount;
+
+    private Owner owner;
+
+    private String lastPetName;
+
+    @Setup
+    public void setUp() {
+        owner = BenchmarkData.owner(1, petCount);
+        lastPetName = owner.getPets().get(petCount - 1).getName().toUpperCase();
+    }
+
+    @Benchmark
+    public List<Pet> getPets() {
+        return owner.getPets();
+    }
+
+    @Benchmark
+    public Pet getPetByName() {
+        return owner.getPet(lastPetName);
+    }
+
+    @Benchmark
+    public Pet getPetByNameMissing() {
+        return owner.getPet("nobody");
+    }
+}
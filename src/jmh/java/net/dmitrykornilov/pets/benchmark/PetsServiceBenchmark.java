@@ -0,0 +1,87 @@
+package net.dmitrykornilov.pets.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import net.dmitrykornilov.pets.model.Owner;
+import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.service.PetsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Service lookups against the in-memory HSQLDB seeded with {@code ownerCount} owners.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PetsServiceBenchmark {
+    @Param({"10000"})
+    int ownerCount;
+
+    @Param({"2"})
+    int petsPerOwner;
+
+    private ConfigurableApplicationContext context;
+
+    private PetsService petsService;
+
+    private int maxOwnerId;
+
+    private int maxPetId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.start(WebApplicationType.NONE);
+        BenchmarkData.seed(context, ownerCount, petsPerOwner);
+        petsService = context.getBean(PetsService.class);
+        maxOwnerId = BenchmarkData.maxId(context, "owners");
+        maxPetId = BenchmarkData.maxId(context, "pets");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Owner findOwnerById() {
+        return petsService.findOwnerById(ThreadLocalRandom.current().nextInt(1, maxOwnerId + 1));
+    }
+
+    @Benchmark
+    public Pet findPetById() {
+        return petsService.findPetById(ThreadLocalRandom.current().nextInt(1, maxPetId + 1));
+    }
+
+    @Benchmark
+    public Collection<Owner> findOwnersPage() {
+        return petsService.findOwnersPage(ThreadLocalRandom.current().nextInt(0, maxOwnerId), 100);
+    }
+
+    @Benchmark
+    public Collection<Owner> findOwnerByLastName() {
+        return petsService.findOwnerByLastName("Last" + ThreadLocalRandom.current().nextInt(0, 5000));
+    }
+
+    @Benchmark
+    public Collection<Owner> searchOwners() {
+        return petsService.searchOwners("last" + ThreadLocalRandom.current().nextInt(0, 500), 0, 20);
+    }
+}
@@ -0,0 +1,89 @@
+package net.dmitrykornilov.pets.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * End-to-end request throughput through Spring MVC (without the security filter chain), from request
+ * mapping to serialized JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestApiBenchmark {
+    @Param({"10000"})
+    int ownerCount;
+
+    private ConfigurableApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    private int maxOwnerId;
+
+    private int maxPetId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.start(WebApplicationType.SERVLET);
+        BenchmarkData.seed(context, ownerCount, 2);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        maxOwnerId = BenchmarkData.maxId(context, "owners");
+        maxPetId = BenchmarkData.maxId(context, "pets");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getOwner() throws Exception {
+        return perform(get("/api/owners/{id}", ThreadLocalRandom.current().nextInt(1, maxOwnerId + 1)));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse listOwnersPage() throws Exception {
+        return perform(get("/api/owners").param("limit", "100")
+                               .param("after", String.valueOf(ThreadLocalRandom.current().nextInt(0, maxOwnerId))));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getPet() throws Exception {
+        return perform(get("/api/pets/{id}", ThreadLocalRandom.current().nextInt(1, maxPetId + 1)));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse listPetTypes() throws Exception {
+        return perform(get("/api/pettypes"));
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+    }
+}
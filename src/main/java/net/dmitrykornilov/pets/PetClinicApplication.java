@@ -3,8 +3,10 @@ package net.dmitrykornilov.pets;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.servlet.support.SpringBootServletInitializer;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class PetClinicApplication extends SpringBootServletInitializer {
 
 	public static void main(String[] args) {
@@ -0,0 +1,40 @@
+package net.dmitrykornilov.pets.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Caches are Caffeine backed and configured through the {@code spring.cache.*} properties, with per-cache
+ * overrides in {@link PetsCacheProperties}; {@code spring.cache.type=none} turns caching off without touching the code.
+ * <p>
+ * The caching interceptor is ordered before the transaction interceptor, so a cache hit never opens a
+ * transaction and an eviction that runs after a write happens once the write has committed. The single-flight
+ * aspect of the service sits in between. Callers must not wrap a write in a transaction of their own: the eviction
+ * would then run before that transaction commits, and a read in between could cache the old row again. Cached
+ * entities are never handed out: the service's copy aspect runs outside the caching interceptor and gives every
+ * caller a copy it may change.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 2)
+@EnableConfigurationProperties(PetsCacheProperties.class)
+public class CacheConfig {
+    public static final String PET_TYPES = "petTypes";
+
+    public static final String PET_TYPES_BY_NAME = "petTypesByName";
+
+    public static final String PET_TYPE_LISTS = "petTypeLists";
+
+    public static final String OWNERS = "owners";
+
+    @Bean
+    CacheManagerCustomizer<CaffeineCacheManager> perCacheSpecs(PetsCacheProperties properties) {
+        return cacheManager -> properties.getSpecs().forEach(
+                (name, spec) -> cacheManager.registerCustomCache(name, Caffeine.from(spec).build()));
+    }
+}
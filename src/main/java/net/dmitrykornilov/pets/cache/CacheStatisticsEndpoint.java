@@ -0,0 +1,52 @@
+package net.dmitrykornilov.pets.cache;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint ({@code /actuator/cachestats}) reporting hit ratio, size and evictions of the Caffeine caches.
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatisticsEndpoint {
+    private final CacheManager cacheManager;
+
+    public CacheStatisticsEndpoint(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @ReadOperation
+    public Map<String, CacheStatistics> caches() {
+        Map<String, CacheStatistics> result = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            CacheStatistics statistics = cache(name);
+            if (statistics != null) {
+                result.put(name, statistics);
+            }
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public CacheStatistics cache(@Selector String name) {
+        var cache = cacheManager.getCache(name);
+        if (cache == null || !(cache.getNativeCache() instanceof Cache<?, ?> caffeine)) {
+            return null;
+        }
+        CacheStats stats = caffeine.stats();
+        return new CacheStatistics(caffeine.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(),
+                                   stats.evictionCount(), stats.evictionWeight());
+    }
+
+    public record CacheStatistics(long size, long hits, long misses, double hitRatio, long evictions,
+                                  long evictionWeight) {
+    }
+}
@@ -0,0 +1,23 @@
+package net.dmitrykornilov.pets.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Per-cache Caffeine specifications, e.g. {@code pets.cache.specs.owners=maximumSize=10000,expireAfterWrite=5m}.
+ * Caches without an entry here use {@code spring.cache.caffeine.spec}.
+ */
+@ConfigurationProperties(prefix = "pets.cache")
+public class PetsCacheProperties {
+    private Map<String, String> specs = new LinkedHashMap<>();
+
+    public Map<String, String> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, String> specs) {
+        this.specs = specs;
+    }
+}
@@ -0,0 +1,60 @@
+package net.dmitrykornilov.pets.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces Spring Boot's data source with a {@link ReadWriteRoutingDataSource} as soon as a replica is
+ * configured. The primary is still configured by {@code spring.datasource.*}, including its Hikari settings.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "pets.datasource", name = "replicas[0].url")
+@EnableConfigurationProperties({DataSourceProperties.class, PetsDataSourceProperties.class})
+public class DataSourceRoutingConfig {
+
+    @Bean
+    DataSource dataSource(DataSourceProperties dataSourceProperties, PetsDataSourceProperties properties,
+                          ObjectProvider<SqlInitializationProperties> sqlInitialization, Environment environment) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (PetsDataSourceProperties.Replica replica : properties.getReplicas()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replica.getUrl())
+                .username(replica.getUsername())
+                .password(replica.getPassword())
+                .build();
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setPoolName("replica-" + replicas.size());
+            if (properties.isInitializeReplicas()) {
+                sqlInitialization.ifAvailable(
+                    settings -> new SqlDataSourceScriptDatabaseInitializer(dataSource, settings).initializeDatabase());
+            }
+            replicas.add(dataSource);
+        }
+        var routing = new ReadWriteRoutingDataSource(primary, replicas, properties.getBalancing(),
+                                                     properties.getReadYourWritesWindow());
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,107 @@
+package net.dmitrykornilov.pets.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Read replicas, e.g. {@code pets.datasource.replicas[0].url=jdbc:hsqldb:hsql://replica1/petclinic}; without any
+ * every transaction uses {@code spring.datasource.*}. See {@link ReadWriteRoutingDataSource}.
+ */
+@ConfigurationProperties(prefix = "pets.datasource")
+public class PetsDataSourceProperties {
+    public enum Balancing {
+        ROUND_ROBIN, LEAST_BUSY
+    }
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    private Balancing balancing = Balancing.ROUND_ROBIN;
+
+    private Duration readYourWritesWindow = Duration.ofSeconds(2);
+
+    private boolean initializeReplicas;
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas;
+    }
+
+    public Balancing getBalancing() {
+        return balancing;
+    }
+
+    public void setBalancing(Balancing balancing) {
+        this.balancing = balancing;
+    }
+
+    /**
+     * How long after a write a client's read-only transactions still go to the primary.
+     */
+    public Duration getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    /**
+     * Whether to run the {@code spring.sql.init} scripts against the replicas too, for local replicas that are
+     * separate in-memory databases rather than copies of the primary.
+     */
+    public boolean isInitializeReplicas() {
+        return initializeReplicas;
+    }
+
+    public void setInitializeReplicas(boolean initializeReplicas) {
+        this.initializeReplicas = initializeReplicas;
+    }
+
+    public static class Replica {
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package net.dmitrykornilov.pets.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends the read-only transactions of the current thread to the primary while a read runs, for reads whose
+ * result outlives the request that made them: a replica that has not caught up would put stale rows into a
+ * cache or an index, where every client would see them until the next write. See {@link ReadsFromPrimary}.
+ * <p>
+ * The routing is decided at a transaction's first statement, so the read has to start its transaction, or at
+ * least issue its first statement, inside {@link #call}.
+ */
+public final class PrimaryReads {
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T call(Supplier<T> read) {
+        boolean nested = enter();
+        try {
+            return read.get();
+        } finally {
+            exit(nested);
+        }
+    }
+
+    /**
+     * Whether the current client reads from the primary for a while after it wrote, see {@link ReadYourWrites}.
+     */
+    public static boolean isPinned() {
+        return ReadYourWrites.isPinned();
+    }
+
+    // true if the thread already reads from the primary
+    static boolean enter() {
+        if (ACTIVE.get() != null) {
+            return true;
+        }
+        ACTIVE.set(Boolean.TRUE);
+        return false;
+    }
+
+    static void exit(boolean nested) {
+        if (!nested) {
+            ACTIVE.remove();
+        }
+    }
+
+    static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+}
@@ -0,0 +1,91 @@
+package net.dmitrykornilov.pets.datasource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replicas and everything else to the primary.
+ * <p>
+ * The transaction's read-only flag is only set after the transaction manager asked for a connection, so this
+ * data source must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * which fetches the real connection at the first statement. Replicas are picked round-robin, or by the fewest
+ * active connections starting from the round-robin position. Read-write transactions pin the client to the
+ * primary once they commit, see {@link ReadYourWrites}, and reads that fill a cache or an index go to the primary
+ * too, see {@link PrimaryReads}.
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> replicas;
+
+    private final PetsDataSourceProperties.Balancing balancing;
+
+    private final Duration readYourWritesWindow;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    ReadWriteRoutingDataSource(DataSource primary, List<HikariDataSource> replicas,
+                               PetsDataSourceProperties.Balancing balancing, Duration readYourWritesWindow) {
+        this.replicas = List.copyOf(replicas);
+        this.balancing = balancing;
+        this.readYourWritesWindow = readYourWritesWindow;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ReadYourWrites.written(readYourWritesWindow);
+                }
+            });
+            return PRIMARY;
+        }
+        if (ReadYourWrites.isPinned() || PrimaryReads.isActive()) {
+            return PRIMARY;
+        }
+        return replica();
+    }
+
+    private int replica() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        if (balancing == PetsDataSourceProperties.Balancing.ROUND_ROBIN) {
+            return start;
+        }
+        int best = start;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = (start + i) % replicas.size();
+            HikariPoolMXBean pool = replicas.get(candidate).getHikariPoolMXBean();
+            int active = pool == null ? 0 : pool.getActiveConnections();
+            if (active < fewest) {
+                best = candidate;
+                fewest = active;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,73 @@
+package net.dmitrykornilov.pets.datasource;
+
+import java.time.Duration;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Keeps a client's reads on the primary for a while after it wrote, so that it does not read its own write back
+ * from a replica that has not caught up yet.
+ * <p>
+ * A committed write sets the {@value #COOKIE} cookie to the time until which the client is pinned, so the pin
+ * holds whichever instance serves the client's next request. Requests carrying an unexpired cookie, and the
+ * rest of the request that wrote, read from the primary. Work outside of a request is never pinned.
+ */
+final class ReadYourWrites {
+    static final String COOKIE = "pets-primary-until";
+
+    private static final String PINNED = ReadYourWrites.class.getName() + ".pinned";
+
+    private ReadYourWrites() {
+    }
+
+    static boolean isPinned() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        Object pinned = attributes.getAttribute(PINNED, RequestAttributes.SCOPE_REQUEST);
+        if (pinned == null) {
+            pinned = pinnedUntil(attributes.getRequest()) > System.currentTimeMillis();
+            attributes.setAttribute(PINNED, pinned, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Boolean) pinned;
+    }
+
+    /**
+     * Pins the current request and, if its response is not committed yet, the client.
+     */
+    static void written(Duration window) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        attributes.setAttribute(PINNED, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            var cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis() + window.toMillis()));
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
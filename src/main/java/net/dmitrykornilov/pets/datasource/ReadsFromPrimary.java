@@ -0,0 +1,17 @@
+package net.dmitrykornilov.pets.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotated method reads from the primary even in a read-only transaction, see {@link PrimaryReads}. For
+ * reads that fill a cache, and for reads that must not miss a committed row, like delta syncs.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ReadsFromPrimary {
+}
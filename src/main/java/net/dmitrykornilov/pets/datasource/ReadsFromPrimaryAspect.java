@@ -0,0 +1,26 @@
+package net.dmitrykornilov.pets.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@link ReadsFromPrimary} methods as {@link PrimaryReads#call} runs its read. Connections are only fetched at the first
+ * statement, so the aspect may run inside or outside the transaction interceptor; on a cache hit nothing is read
+ * at all.
+ */
+@Aspect
+@Component
+class ReadsFromPrimaryAspect {
+
+    @Around("@annotation(net.dmitrykornilov.pets.datasource.ReadsFromPrimary)")
+    Object route(ProceedingJoinPoint invocation) throws Throwable {
+        boolean nested = PrimaryReads.enter();
+        try {
+            return invocation.proceed();
+        } finally {
+            PrimaryReads.exit(nested);
+        }
+    }
+}
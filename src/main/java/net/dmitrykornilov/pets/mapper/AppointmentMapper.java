@@ -0,0 +1,24 @@
+package net.dmitrykornilov.pets.mapper;
+
+import java.util.Collection;
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.Appointment;
+import net.dmitrykornilov.pets.rest.dto.AppointmentDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper
+public interface AppointmentMapper {
+
+    @Mapping(source = "vet.id", target = "vetId")
+    @Mapping(source = "pet.id", target = "petId")
+    AppointmentDto toAppointmentDto(Appointment appointment);
+
+    @Mapping(target = "vet", ignore = true)
+    @Mapping(target = "pet", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    Appointment toAppointment(AppointmentDto appointmentDto);
+
+    List<AppointmentDto> toAppointmentDtos(Collection<Appointment> appointments);
+}
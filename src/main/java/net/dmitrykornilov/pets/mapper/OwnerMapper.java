@@ -6,12 +6,14 @@ import java.util.List;
 import net.dmitrykornilov.pets.model.Owner;
 import net.dmitrykornilov.pets.rest.dto.OwnerDto;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(uses = PetMapper.class)
 public interface OwnerMapper {
 
     OwnerDto toOwnerDto(Owner owner);
 
+    @Mapping(target = "version", ignore = true)
     Owner toOwner(OwnerDto ownerDto);
 
     List<OwnerDto> toOwnerDtoCollection(Collection<Owner> ownerCollection);
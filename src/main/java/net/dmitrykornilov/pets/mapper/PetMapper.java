@@ -19,10 +19,14 @@ public interface PetMapper {
 
     Collection<Pet> toPets(Collection<PetDto> pets);
 
+    // the owner is resolved by the caller
+    @Mapping(target = "owner", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Pet toPet(PetDto petDto);
 
     PetTypeDto toPetTypeDto(PetType petType);
 
+    @Mapping(target = "version", ignore = true)
     PetType toPetType(PetTypeDto petTypeDto);
 
     Collection<PetTypeDto> toPetTypeDtos(Collection<PetType> petTypes);
@@ -6,10 +6,12 @@ import java.util.List;
 import net.dmitrykornilov.pets.model.PetType;
 import net.dmitrykornilov.pets.rest.dto.PetTypeDto;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper
 public interface PetTypeMapper {
 
+    @Mapping(target = "version", ignore = true)
     PetType toPetType(PetTypeDto petTypeDto);
 
     PetTypeDto toPetTypeDto(PetType petType);
@@ -0,0 +1,20 @@
+package net.dmitrykornilov.pets.mapper;
+
+import java.util.Collection;
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.Specialty;
+import net.dmitrykornilov.pets.rest.dto.SpecialtyDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper
+public interface SpecialtyMapper {
+
+    @Mapping(target = "version", ignore = true)
+    Specialty toSpecialty(SpecialtyDto specialtyDto);
+
+    SpecialtyDto toSpecialtyDto(Specialty specialty);
+
+    List<SpecialtyDto> toSpecialtyDtos(Collection<Specialty> specialties);
+}
@@ -0,0 +1,22 @@
+package net.dmitrykornilov.pets.mapper;
+
+import java.util.Collection;
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.Vet;
+import net.dmitrykornilov.pets.rest.dto.VetDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(uses = SpecialtyMapper.class)
+public interface VetMapper {
+
+    VetDto toVetDto(Vet vet);
+
+    // specialties are resolved by id against the stored ones, never created through a vet
+    @Mapping(target = "specialties", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    Vet toVet(VetDto vetDto);
+
+    List<VetDto> toVetDtos(Collection<Vet> vets);
+}
@@ -0,0 +1,22 @@
+package net.dmitrykornilov.pets.mapper;
+
+import java.util.Collection;
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.Visit;
+import net.dmitrykornilov.pets.rest.dto.VisitDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper
+public interface VisitMapper {
+
+    @Mapping(source = "pet.id", target = "petId")
+    VisitDto toVisitDto(Visit visit);
+
+    @Mapping(target = "pet", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    Visit toVisit(VisitDto visitDto);
+
+    List<VisitDto> toVisitDtos(Collection<Visit> visits);
+}
@@ -1,17 +1,23 @@
 package net.dmitrykornilov.pets.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
 
 @MappedSuperclass
 public class BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     protected Integer id;
 
+    @Version
+    @Column(name = "version")
+    protected Integer version;
+
     public Integer getId() {
         return id;
     }
@@ -19,6 +25,14 @@ public class BaseEntity {
     public void setId(Integer id) {
         this.id = id;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
     @JsonIgnore
     public boolean isNew() {
         return this.id == null;
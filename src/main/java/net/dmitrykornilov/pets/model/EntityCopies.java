@@ -0,0 +1,108 @@
+package net.dmitrykornilov.pets.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Hibernate;
+
+/**
+ * Deep copies of owners, pets and pet types, for handing out entities that are shared, e.g. through a cache,
+ * to callers that may change them.
+ * <p>
+ * A copy keeps the id and version of the original, so saving it merges it just like the original. Associations
+ * that were never loaded are not loaded for the copy; it shares the uninitialized reference instead.
+ */
+public final class EntityCopies {
+
+    private EntityCopies() {
+    }
+
+    /**
+     * A copy of the owner, pet or pet type, or a list of copies of a collection of them; null for null.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(T value) {
+        return (T) copy(value, new IdentityHashMap<>());
+    }
+
+    // copies holds what was copied already, so that a pet and its owner's pets end up as one object graph again
+    private static Object copy(Object value, Map<Object, Object> copies) {
+        if (value == null || !Hibernate.isInitialized(value)) {
+            return value;
+        }
+        Object copy = copies.get(value);
+        if (copy != null) {
+            return copy;
+        }
+        if (value instanceof Owner owner) {
+            return copyOwner(owner, copies);
+        }
+        if (value instanceof Pet pet) {
+            return copyPet(pet, copies);
+        }
+        if (value instanceof PetType petType) {
+            return copyPetType(petType, copies);
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> list = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                list.add(copy(element, copies));
+            }
+            return list;
+        }
+        throw new IllegalArgumentException("Cannot copy " + value.getClass().getName());
+    }
+
+    private static Owner copyOwner(Owner owner, Map<Object, Object> copies) {
+        var copy = new Owner();
+        copies.put(owner, copy);
+        copyBase(owner, copy);
+        copy.setFirstName(owner.getFirstName());
+        copy.setLastName(owner.getLastName());
+        copy.setAddress(owner.getAddress());
+        copy.setCity(owner.getCity());
+        copy.setTelephone(owner.getTelephone());
+        copy.setUpdatedAt(owner.getUpdatedAt());
+        Set<Pet> pets = owner.getPetsInternal();
+        if (Hibernate.isInitialized(pets)) {
+            Set<Pet> petCopies = new HashSet<>();
+            for (Pet pet : pets) {
+                petCopies.add((Pet) copy(pet, copies));
+            }
+            pets = petCopies;
+        }
+        copy.setPetsInternal(pets);
+        return copy;
+    }
+
+    private static Pet copyPet(Pet pet, Map<Object, Object> copies) {
+        var copy = new Pet();
+        copies.put(pet, copy);
+        copyBase(pet, copy);
+        copy.setName(pet.getName());
+        copy.setBirthDate(pet.getBirthDate());
+        copy.setUpdatedAt(pet.getUpdatedAt());
+        copy.setType((PetType) copy(pet.getType(), copies));
+        copy.setOwner((Owner) copy(pet.getOwner(), copies));
+        return copy;
+    }
+
+    private static PetType copyPetType(PetType petType, Map<Object, Object> copies) {
+        var copy = new PetType();
+        copies.put(petType, copy);
+        copyBase(petType, copy);
+        copy.setName(petType.getName());
+        copy.setUpdatedAt(petType.getUpdatedAt());
+        return copy;
+    }
+
+    private static void copyBase(BaseEntity entity, BaseEntity copy) {
+        copy.setId(entity.getId());
+        copy.setVersion(entity.getVersion());
+    }
+}
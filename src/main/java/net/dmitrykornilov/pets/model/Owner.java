@@ -1,10 +1,14 @@
 package net.dmitrykornilov.pets.model;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -12,13 +16,15 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotEmpty;
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.core.style.ToStringCreator;
 
 @Entity
+@DynamicUpdate
 @Table(name = "owners")
 public class Owner extends Person {
     @Column(name = "address")
@@ -34,9 +40,17 @@ public class Owner extends Person {
     @Digits(fraction = 0, integer = 10)
     private String telephone;
 
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "owner", fetch = FetchType.EAGER)
+    // set on every insert and update, like that of pets and pet types, so that delta syncs find the rows changed
+    // since the last one
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "owner", fetch = FetchType.LAZY)
     private Set<Pet> pets;
 
+    @Transient
+    private PetsView petsView;
 
     public String getAddress() {
         return this.address;
@@ -62,6 +76,14 @@ public class Owner extends Person {
         this.telephone = telephone;
     }
 
+    public Instant getUpdatedAt() {
+        return this.updatedAt;
+    }
+
+    void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     protected Set<Pet> getPetsInternal() {
         if (this.pets == null) {
             this.pets = new HashSet<>();
@@ -71,21 +93,30 @@ public class Owner extends Person {
 
     protected void setPetsInternal(Set<Pet> pets) {
         this.pets = pets;
+        this.petsView = null;
     }
 
+    /**
+     * Return the pets sorted by name. The list is a read-only view that is reused until the pets change.
+     */
     public List<Pet> getPets() {
-        List<Pet> sortedPets = new ArrayList<>(getPetsInternal());
-        PropertyComparator.sort(sortedPets, new MutableSortDefinition("name", true, true));
-        return Collections.unmodifiableList(sortedPets);
+        return petsView().sorted;
     }
 
     public void setPets(List<Pet> pets) {
         this.pets = new HashSet<>(pets);
+        this.petsView = null;
     }
 
     public void addPet(Pet pet) {
         getPetsInternal().add(pet);
         pet.setOwner(this);
+        this.petsView = null;
+    }
+
+    // a pet of this owner was renamed in place
+    void petsChanged() {
+        this.petsView = null;
     }
 
     /**
@@ -105,19 +136,64 @@ public class Owner extends Person {
      * @return true if pet name is already in use
      */
     public Pet getPet(String name, boolean ignoreNew) {
-        name = name.toLowerCase();
-        for (Pet pet : getPetsInternal()) {
-            if (!ignoreNew || !pet.isNew()) {
-                String compName = pet.getName();
-                compName = compName.toLowerCase();
-                if (compName.equals(name)) {
-                    return pet;
-                }
+        Pet pet = petsView().byName.get(name);
+        if (pet == null || !ignoreNew || !pet.isNew()) {
+            return pet;
+        }
+        // the indexed pet is new, but a persisted one may share its name
+        for (Pet candidate : getPetsInternal()) {
+            if (!candidate.isNew() && name.equalsIgnoreCase(candidate.getName())) {
+                return candidate;
             }
         }
         return null;
     }
 
+    /**
+     * Return the view over the current pets, rebuilding it when the collection was replaced (e.g. by Hibernate)
+     * or changed size since it was built. A pet renamed in place drops the view through its owner reference.
+     */
+    private PetsView petsView() {
+        Set<Pet> source = getPetsInternal();
+        PetsView view = this.petsView;
+        if (view == null || view.source != source || view.size != source.size()) {
+            view = new PetsView(source);
+            this.petsView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Immutable name-ordered snapshot of the pets with a case-insensitive name index.
+     */
+    private static final class PetsView {
+        private static final Comparator<Pet> BY_NAME =
+            Comparator.comparing(Pet::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+        private final Set<Pet> source;
+
+        private final int size;
+
+        private final List<Pet> sorted;
+
+        private final Map<String, Pet> byName;
+
+        PetsView(Set<Pet> source) {
+            List<Pet> pets = new ArrayList<>(source);
+            pets.sort(BY_NAME);
+            Map<String, Pet> index = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Pet pet : pets) {
+                if (pet.getName() != null) {
+                    index.putIfAbsent(pet.getName(), pet);
+                }
+            }
+            this.source = source;
+            this.size = pets.size();
+            this.sorted = Collections.unmodifiableList(pets);
+            this.byName = index;
+        }
+    }
+
     @Override
     public String toString() {
         return new ToStringCreator(this)
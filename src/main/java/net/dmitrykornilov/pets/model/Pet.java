@@ -1,28 +1,47 @@
 package net.dmitrykornilov.pets.model;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 
 @Entity
+@DynamicUpdate
 @Table(name = "pets")
 public class Pet extends NamedEntity {
 
     @Column(name = "birth_date", columnDefinition = "DATE")
     private LocalDate birthDate;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "type_id")
     private PetType type;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     private Owner owner;
 
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @Override
+    public void setName(String name) {
+        super.setName(name);
+        // the owner orders and looks up its pets by name; an owner that is still a lazy proxy has no view yet
+        if (this.owner != null && Hibernate.isInitialized(this.owner)) {
+            this.owner.petsChanged();
+        }
+    }
+
     public LocalDate getBirthDate() {
         return this.birthDate;
     }
@@ -46,4 +65,12 @@ public class Pet extends NamedEntity {
     public void setOwner(Owner owner) {
         this.owner = owner;
     }
+
+    public Instant getUpdatedAt() {
+        return this.updatedAt;
+    }
+
+    void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
@@ -0,0 +1,10 @@
+package net.dmitrykornilov.pets.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "specialties")
+public class Specialty extends NamedEntity {
+
+}
@@ -0,0 +1,58 @@
+package net.dmitrykornilov.pets.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Records that an owner, pet or pet type was deleted, so that delta syncs can tell clients which rows to drop.
+ * Written by database triggers, never by the application.
+ */
+@Entity
+@Table(name = "tombstones")
+public class Tombstone {
+    public static final String OWNER = "owner";
+
+    public static final String PET = "pet";
+
+    public static final String PET_TYPE = "type";
+
+    @Id
+    private Integer id;
+
+    @Column(name = "entity")
+    private String entity;
+
+    @Column(name = "entity_id")
+    private Integer entityId;
+
+    // the owner of a deleted pet, whose pets changed with it
+    @Column(name = "owner_id")
+    private Integer ownerId;
+
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public Integer getEntityId() {
+        return entityId;
+    }
+
+    public Integer getOwnerId() {
+        return ownerId;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+}
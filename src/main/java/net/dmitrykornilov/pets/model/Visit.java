@@ -0,0 +1,61 @@
+package net.dmitrykornilov.pets.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * A visit of a pet to the clinic. Pets do not map their visits, so owner and pet reads never load them;
+ * a pet's history is read page by page through the visit repository.
+ */
+@Entity
+@Table(name = "visits")
+public class Visit extends BaseEntity {
+
+    @Column(name = "visit_date", columnDefinition = "DATE")
+    @NotNull
+    private LocalDate date;
+
+    @Column(name = "description")
+    @NotEmpty
+    private String description;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "pet_id")
+    private Pet pet;
+
+    public Visit() {
+        this.date = LocalDate.now();
+    }
+
+    public LocalDate getDate() {
+        return this.date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public String getDescription() {
+        return this.description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Pet getPet() {
+        return this.pet;
+    }
+
+    public void setPet(Pet pet) {
+        this.pet = pet;
+    }
+}
@@ -0,0 +1,37 @@
+package net.dmitrykornilov.pets.monitoring;
+
+/**
+ * The JDBC statements executed, the time spent executing them and the rows read by the current thread, as
+ * counted by {@link StatementCountingDataSource}. Callers take a snapshot before a piece of work and subtract it afterwards.
+ */
+public final class JdbcActivity {
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[3]);
+
+    private JdbcActivity() {
+    }
+
+    public static long statements() {
+        return COUNTERS.get()[0];
+    }
+
+    public static long rows() {
+        return COUNTERS.get()[1];
+    }
+
+    /**
+     * Nanoseconds spent executing statements.
+     */
+    public static long nanos() {
+        return COUNTERS.get()[2];
+    }
+
+    static void statementExecuted(long nanos) {
+        long[] counters = COUNTERS.get();
+        counters[0]++;
+        counters[2] += nanos;
+    }
+
+    static void rowRead() {
+        COUNTERS.get()[1]++;
+    }
+}
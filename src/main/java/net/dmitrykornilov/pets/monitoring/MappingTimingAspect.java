@@ -0,0 +1,26 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Times the MapStruct mappers for the {@code Server-Timing} header.
+ */
+@Aspect
+class MappingTimingAspect {
+
+    @Around("execution(public * net.dmitrykornilov.pets.mapper.*Mapper+.*(..))")
+    Object time(ProceedingJoinPoint invocation) throws Throwable {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) {
+            return invocation.proceed();
+        }
+        timings.enter(RequestTimings.Phase.MAP);
+        try {
+            return invocation.proceed();
+        } finally {
+            timings.exit(RequestTimings.Phase.MAP);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Times every {@code PetsService} method and every REST controller method, and records how many JDBC statements
+ * each invocation executed and how many rows it read.
+ * <p>
+ * Service methods are recorded as {@value #SERVICE}, controller methods as {@value #REST}, each with a
+ * {@code .jdbc.statements} and a {@code .jdbc.rows} summary next to the timer. All are tagged with class,
+ * method and outcome: {@code SUCCESS} or the exception's simple name for services, the outcome of the response
+ * status for controllers. The aspect runs outside the caching and transaction interceptors, so cache hits show
+ * up as invocations without statements and commit time is part of the timing.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+class MetricsAspect {
+    static final String SERVICE = "pets.service";
+
+    static final String REST = "pets.rest";
+
+    private final MeterRegistry registry;
+
+    MetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * net.dmitrykornilov.pets.service.PetsService.*(..))")
+    Object recordService(ProceedingJoinPoint invocation) throws Throwable {
+        return record(SERVICE, invocation);
+    }
+
+    @Around("@within(org.springframework.web.bind.annotation.RestController) && execution(public * *(..))")
+    Object recordRest(ProceedingJoinPoint invocation) throws Throwable {
+        return record(REST, invocation);
+    }
+
+    private Object record(String name, ProceedingJoinPoint invocation) throws Throwable {
+        long statements = JdbcActivity.statements();
+        long rows = JdbcActivity.rows();
+        long start = System.nanoTime();
+        String outcome = "SUCCESS";
+        try {
+            Object result = invocation.proceed();
+            if (result instanceof ResponseEntity<?> response) {
+                outcome = Outcome.forStatus(response.getStatusCode().value()).name();
+            }
+            return result;
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Tags tags = Tags.of("class", invocation.getSignature().getDeclaringType().getSimpleName(),
+                                "method", invocation.getSignature().getName(),
+                                "outcome", outcome);
+            Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder(name + ".jdbc.statements")
+                .baseUnit("statements")
+                .tags(tags)
+                .register(registry)
+                .record(JdbcActivity.statements() - statements);
+            DistributionSummary.builder(name + ".jdbc.rows")
+                .baseUnit("rows")
+                .tags(tags)
+                .register(registry)
+                .record(JdbcActivity.rows() - rows);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Service and REST metrics, see {@link MetricsAspect}; {@code pets.metrics.enabled=false} turns them off.
+ * While the metrics or the {@code Server-Timing} header are on, the data source is wrapped in a
+ * {@link StatementCountingDataSource}, which feeds {@link JdbcActivity} for them, and {@link SqlStatistics} for the
+ * {@code sqlstats} endpoint and the slow-query log. With both off, statements run on the data source as is and
+ * the endpoint stays empty.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(SqlStatisticsProperties.class)
+public class MonitoringConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "pets.metrics", name = "enabled", matchIfMissing = true)
+    MetricsAspect metricsAspect(MeterRegistry registry) {
+        return new MetricsAspect(registry);
+    }
+
+    @Bean
+    SqlStatistics sqlStatistics(SqlStatisticsProperties properties) {
+        return new SqlStatistics(properties);
+    }
+
+    @Bean
+    SqlStatisticsEndpoint sqlStatisticsEndpoint(SqlStatistics sqlStatistics) {
+        return new SqlStatisticsEndpoint(sqlStatistics);
+    }
+
+    // static, so that wrapping the data source does not pull this configuration in early
+    @Bean
+    @Conditional(StatementCountingCondition.class)
+    static BeanPostProcessor statementCountingDataSource(ObjectProvider<SqlStatistics> sqlStatistics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource, sqlStatistics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    static class StatementCountingCondition extends AnyNestedCondition {
+
+        StatementCountingCondition() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(prefix = "pets.metrics", name = "enabled", matchIfMissing = true)
+        static class MetricsEnabled {
+        }
+
+        @ConditionalOnProperty(prefix = "pets.server-timing", name = "enabled")
+        static class ServerTimingEnabled {
+        }
+    }
+}
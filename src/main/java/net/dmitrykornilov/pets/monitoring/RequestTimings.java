@@ -0,0 +1,112 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import java.util.Locale;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Where the time of the current request went: executing SQL, mapping between entities and DTOs, validating
+ * request bodies and serializing response bodies. Bound to the request thread by {@link ServerTimingFilter};
+ * the phase hooks do nothing when no request is being timed.
+ * <p>
+ * Phases nest, e.g. a mapper calling another mapper, and only the outermost call of a phase is timed.
+ */
+final class RequestTimings {
+    static final String HEADER = "Server-Timing";
+
+    enum Phase {
+        MAP, VALIDATE, SERIALIZE
+    }
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+
+    private final long statements = JdbcActivity.statements();
+
+    private final long rows = JdbcActivity.rows();
+
+    private final long jdbcNanos = JdbcActivity.nanos();
+
+    private final long[] nanos = new long[Phase.values().length];
+
+    private final long[] entered = new long[Phase.values().length];
+
+    private final int[] depth = new int[Phase.values().length];
+
+    private boolean reported;
+
+    private RequestTimings() {
+    }
+
+    static RequestTimings begin() {
+        var timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    void end() {
+        CURRENT.remove();
+    }
+
+    void enter(Phase phase) {
+        if (depth[phase.ordinal()]++ == 0) {
+            entered[phase.ordinal()] = System.nanoTime();
+        }
+    }
+
+    void exit(Phase phase) {
+        if (--depth[phase.ordinal()] == 0) {
+            nanos[phase.ordinal()] += System.nanoTime() - entered[phase.ordinal()];
+        }
+    }
+
+    /**
+     * Adds the {@value #HEADER} header with the timings so far; only the first call adds it.
+     */
+    void report(HttpHeaders headers) {
+        if (!reported) {
+            reported = true;
+            headers.set(HEADER, header());
+        }
+    }
+
+    boolean isReported() {
+        return reported;
+    }
+
+    long totalNanos() {
+        return System.nanoTime() - start;
+    }
+
+    String header() {
+        return String.format(Locale.ROOT,
+                             "db;dur=%.3f;desc=\"%d statements, %d rows\", map;dur=%.3f, validate;dur=%.3f, "
+                             + "serialize;dur=%.3f, total;dur=%.3f",
+                             millis(JdbcActivity.nanos() - jdbcNanos), JdbcActivity.statements() - statements,
+                             JdbcActivity.rows() - rows, millis(nanos[Phase.MAP.ordinal()]),
+                             millis(nanos[Phase.VALIDATE.ordinal()]), millis(nanos[Phase.SERIALIZE.ordinal()]),
+                             millis(totalNanos()));
+    }
+
+    /**
+     * The timings as {@code key=value} pairs, durations in milliseconds.
+     */
+    String fields() {
+        return String.format(Locale.ROOT,
+                             "total_ms=%.3f db_ms=%.3f db_statements=%d db_rows=%d map_ms=%.3f validate_ms=%.3f "
+                             + "serialize_ms=%.3f",
+                             millis(totalNanos()), millis(JdbcActivity.nanos() - jdbcNanos),
+                             JdbcActivity.statements() - statements, JdbcActivity.rows() - rows,
+                             millis(nanos[Phase.MAP.ordinal()]), millis(nanos[Phase.VALIDATE.ordinal()]),
+                             millis(nanos[Phase.SERIALIZE.ordinal()]));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
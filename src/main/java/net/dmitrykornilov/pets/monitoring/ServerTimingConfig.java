@@ -0,0 +1,49 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * The {@code Server-Timing} header of the API responses, see {@link ServerTimingFilter}. Off unless
+ * {@code pets.server-timing.enabled=true}; when off none of its hooks are installed.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "pets.server-timing", name = "enabled")
+@EnableConfigurationProperties(ServerTimingProperties.class)
+public class ServerTimingConfig {
+
+    @Bean
+    FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(ServerTimingProperties properties) {
+        var registration = new FilterRegistrationBean<>(new ServerTimingFilter(properties));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    // replaces Spring Boot's converter, which backs off when there is one already
+    @Bean
+    TimingJackson2HttpMessageConverter timingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimingJackson2HttpMessageConverter(objectMapper);
+    }
+
+    @Bean
+    MappingTimingAspect mappingTimingAspect() {
+        return new MappingTimingAspect();
+    }
+
+    @Bean
+    WebMvcConfigurer timingValidatorConfigurer(Validator validator) {
+        return new WebMvcConfigurer() {
+            @Override
+            public org.springframework.validation.Validator getValidator() {
+                return new TimingValidator(new SpringValidatorAdapter(validator));
+            }
+        };
+    }
+}
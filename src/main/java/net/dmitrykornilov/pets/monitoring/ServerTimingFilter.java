@@ -0,0 +1,50 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Times every API request and reports the timings in a {@code Server-Timing} header, see {@link RequestTimings}.
+ * <p>
+ * JSON bodies are serialized by {@link TimingJackson2HttpMessageConverter}, which adds the header once the body
+ * is serialized but before it is written. Other responses get it when the request returns, unless the response
+ * was already committed. A sample of the requests slower than the threshold is logged at INFO as one line of
+ * {@code key=value} pairs.
+ */
+class ServerTimingFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private final ServerTimingProperties properties;
+
+    ServerTimingFilter(ServerTimingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            timings.end();
+            if (!timings.isReported() && !response.isCommitted()) {
+                response.setHeader(RequestTimings.HEADER, timings.header());
+            }
+            if (timings.totalNanos() >= properties.getSlowThreshold().toNanos()
+                && ThreadLocalRandom.current().nextDouble() < properties.getSlowSampleRate()
+                && log.isInfoEnabled()) {
+                log.info("slow request method={} path={} status={} {}", request.getMethod(),
+                         request.getRequestURI(), response.getStatus(), timings.fields());
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * {@code pets.server-timing.*}: whether API responses carry a {@code Server-Timing} header, and which slow
+ * requests are logged with their timings.
+ */
+@ConfigurationProperties(prefix = "pets.server-timing")
+public class ServerTimingProperties {
+    private boolean enabled;
+
+    private Duration slowThreshold = Duration.ofMillis(500);
+
+    private double slowSampleRate = 1.0;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(Duration slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public double getSlowSampleRate() {
+        return slowSampleRate;
+    }
+
+    public void setSlowSampleRate(double slowSampleRate) {
+        this.slowSampleRate = slowSampleRate;
+    }
+}
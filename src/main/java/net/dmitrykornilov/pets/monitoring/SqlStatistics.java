@@ -0,0 +1,190 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import net.dmitrykornilov.pets.service.PetsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Execution statistics per SQL statement, fed by {@link StatementCountingDataSource}.
+ * <p>
+ * Statements are keyed by their text with literals replaced by {@code ?}, whitespace collapsed and
+ * {@code in (?, ?, ...)} lists shortened to {@code in (?)}, so that a query shows up once however many ids it
+ * was run with. Each distinct text is normalized once. At most {@code maxStatements} distinct statements are
+ * kept; once full, statements not seen before are added up under {@value #OTHER}. Recording only touches
+ * striped counters, so concurrent executions of the same statement do not contend.
+ * <p>
+ * Executions slower than the threshold are logged at WARN with the {@link PetsService} method that ran them.
+ * Looking for that method walks the stack, so only slow executions pay for it.
+ */
+public class SqlStatistics {
+    static final String OTHER = "(other)";
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatistics.class);
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    public record StatementStatistics(String sql, long count, double totalMillis, double meanMillis,
+                                      double maxMillis, double p99Millis, long rows) {
+    }
+
+    /**
+     * The counters of one statement.
+     */
+    static final class Entry {
+        // bucket i holds the executions that took less than 2^((i + 1) / 4) microseconds
+        private static final int BUCKETS = 128;
+
+        private final String sql;
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder nanos = new LongAdder();
+
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder rows = new LongAdder();
+
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        private Entry(String sql) {
+            this.sql = sql;
+        }
+
+        void rowRead() {
+            rows.increment();
+        }
+
+        private void executed(long elapsed) {
+            count.increment();
+            nanos.add(elapsed);
+            max.accumulate(elapsed);
+            int bucket = (int) (4 * Math.log(elapsed / 1000.0 + 1) / Math.log(2));
+            histogram.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+        }
+
+        // the upper bound of the bucket holding the 99th percentile, so up to a fifth too high
+        private double p99Millis() {
+            long total = 0;
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+            long rank = (long) Math.ceil(total * 0.99);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min((Math.pow(2, (i + 1) / 4.0) - 1) / 1000, max.get() / 1_000_000.0);
+                }
+            }
+            return 0;
+        }
+
+        private StatementStatistics snapshot() {
+            long executions = count.sum();
+            double total = nanos.sum() / 1_000_000.0;
+            return new StatementStatistics(sql, executions, total, executions == 0 ? 0 : total / executions,
+                                           max.get() / 1_000_000.0, p99Millis(), rows.sum());
+        }
+    }
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])\\d+(?:\\.\\d+)?");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // only IN lists vary in length with the arguments; the parameters of an insert or update are the statement
+    private static final Pattern PARAMETER_LIST = Pattern.compile("(?i)(\\bin\\s*\\()\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // the entries by the exact text, so that a statement is normalized once rather than per execution
+    private final Map<String, Entry> entriesBySql = new ConcurrentHashMap<>();
+
+    private final int maxStatements;
+
+    private final long slowQueryNanos;
+
+    public SqlStatistics(SqlStatisticsProperties properties) {
+        this.maxStatements = properties.getMaxStatements();
+        this.slowQueryNanos = properties.getSlowQueryThreshold().toNanos();
+    }
+
+    /**
+     * The counters of the statement, to be passed to {@link #executed} and to count its rows.
+     */
+    Entry entry(String sql) {
+        Entry entry = entriesBySql.get(sql);
+        if (entry != null) {
+            return entry;
+        }
+        String key = normalize(sql);
+        entry = entries.get(key);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(entries.size() >= maxStatements ? OTHER : key, Entry::new);
+        }
+        if (entriesBySql.size() < 4 * maxStatements) {
+            entriesBySql.put(sql, entry);
+        }
+        return entry;
+    }
+
+    void executed(Entry entry, long nanos) {
+        entry.executed(nanos);
+        if (nanos >= slowQueryNanos && log.isWarnEnabled()) {
+            log.warn("slow query elapsed_ms={} caller={} sql={}", String.format("%.3f", nanos / 1_000_000.0),
+                     caller(), entry.sql);
+        }
+    }
+
+    /**
+     * The statements by total execution time, highest first.
+     */
+    public List<StatementStatistics> statements() {
+        return entries.values().stream()
+            .map(Entry::snapshot)
+            .sorted(Comparator.comparingDouble(StatementStatistics::totalMillis).reversed())
+            .toList();
+    }
+
+    public void reset() {
+        entriesBySql.clear();
+        entries.clear();
+    }
+
+    // the innermost PetsService method on the stack, or the innermost frame of this application
+    private static String caller() {
+        return STACK_WALKER.walk(frames -> {
+            String application = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String name = frame.getDeclaringClass().getSimpleName() + "." + frame.getMethodName();
+                if (PetsService.class.isAssignableFrom(frame.getDeclaringClass())) {
+                    return name;
+                }
+                if (application == null && frame.getClassName().startsWith("net.dmitrykornilov.pets.")
+                    && !frame.getClassName().startsWith(SqlStatistics.class.getPackageName())) {
+                    application = name;
+                }
+            }
+            return application != null ? application : "unknown";
+        });
+    }
+
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return PARAMETER_LIST.matcher(normalized).replaceAll("$1?)");
+    }
+}
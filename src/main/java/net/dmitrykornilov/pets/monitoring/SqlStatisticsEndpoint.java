@@ -0,0 +1,32 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * Actuator endpoint ({@code /actuator/sqlstats}) listing the SQL statements by total execution time, with an
+ * optional {@code limit}; DELETE resets the statistics.
+ */
+@Endpoint(id = "sqlstats")
+public class SqlStatisticsEndpoint {
+    private final SqlStatistics sqlStatistics;
+
+    public SqlStatisticsEndpoint(SqlStatistics sqlStatistics) {
+        this.sqlStatistics = sqlStatistics;
+    }
+
+    @ReadOperation
+    public List<SqlStatistics.StatementStatistics> statements(@Nullable Integer limit) {
+        List<SqlStatistics.StatementStatistics> statements = sqlStatistics.statements();
+        return limit == null ? statements : statements.subList(0, Math.min(Math.max(limit, 0), statements.size()));
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sqlStatistics.reset();
+    }
+}
@@ -0,0 +1,32 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * {@code pets.sql.*}: how many distinct statements {@link SqlStatistics} keeps, and from which execution time on
+ * a statement is logged as slow.
+ */
+@ConfigurationProperties(prefix = "pets.sql")
+public class SqlStatisticsProperties {
+    private int maxStatements = 500;
+
+    private Duration slowQueryThreshold = Duration.ofMillis(100);
+
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    public void setMaxStatements(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    public Duration getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    public void setSlowQueryThreshold(Duration slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+}
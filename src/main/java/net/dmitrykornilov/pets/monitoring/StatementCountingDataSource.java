@@ -0,0 +1,116 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Counts the statements executed and the rows read through a data source in {@link JdbcActivity}, and records
+ * them per statement in {@link SqlStatistics}.
+ * <p>
+ * Connections, statements and result sets are wrapped in dynamic proxies that only look at the method name;
+ * every {@code execute*} call counts as one statement, so a JDBC batch counts once, and every {@code next()}
+ * that returns true counts as one row. The time spent in {@code execute*} calls is added up as well; fetching
+ * the rows of a result set is not timed, so that reading a large result does not pay for a clock read per row.
+ */
+class StatementCountingDataSource extends DelegatingDataSource {
+    private final SqlStatistics statistics;
+
+    StatementCountingDataSource(DataSource targetDataSource, SqlStatistics statistics) {
+        super(targetDataSource);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection(), null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password), null);
+    }
+
+    private <T> T proxy(Class<T> type, T target, SqlStatistics.Entry entry) {
+        return type.cast(Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                                                new Class<?>[] {type}, new Counting(target, entry)));
+    }
+
+    private final class Counting implements InvocationHandler {
+        private final Object target;
+
+        // the statement a prepared statement or a result set belongs to, if known
+        private final SqlStatistics.Entry entry;
+
+        Counting(Object target, SqlStatistics.Entry entry) {
+            this.target = target;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            boolean execute = target instanceof Statement && name.startsWith("execute");
+            SqlStatistics.Entry statement = entry;
+            if (name.startsWith("prepare") || (execute && args != null && args.length > 0
+                                               && args[0] instanceof String)) {
+                statement = statistics.entry((String) args[0]);
+            }
+            long start = execute ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            } finally {
+                if (execute) {
+                    long elapsed = System.nanoTime() - start;
+                    JdbcActivity.statementExecuted(elapsed);
+                    if (statement != null) {
+                        statistics.executed(statement, elapsed);
+                    }
+                }
+            }
+            if (name.equals("unwrap")) {
+                return result;
+            }
+            if (target instanceof ResultSet) {
+                if (name.equals("next") && Boolean.TRUE.equals(result)) {
+                    JdbcActivity.rowRead();
+                    if (entry != null) {
+                        entry.rowRead();
+                    }
+                }
+                return result;
+            }
+            // wrap what the statements hand out, so their rows are counted too
+            if (result instanceof CallableStatement callable) {
+                return proxy(CallableStatement.class, callable, statement);
+            }
+            if (result instanceof PreparedStatement prepared) {
+                return proxy(PreparedStatement.class, prepared, statement);
+            }
+            if (result instanceof Statement plain) {
+                return proxy(Statement.class, plain, statement);
+            }
+            if (result instanceof ResultSet resultSet) {
+                return proxy(ResultSet.class, resultSet, statement);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Serializes into a buffer while a request is timed, so that the serialization time can go into the
+ * {@code Server-Timing} header before the body is written.
+ */
+class TimingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    TimingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        var buffer = new ByteArrayOutputStream();
+        timings.enter(RequestTimings.Phase.SERIALIZE);
+        try {
+            super.writeInternal(object, type, new HttpOutputMessage() {
+                @Override
+                public OutputStream getBody() {
+                    return buffer;
+                }
+
+                @Override
+                public HttpHeaders getHeaders() {
+                    return outputMessage.getHeaders();
+                }
+            });
+        } finally {
+            timings.exit(RequestTimings.Phase.SERIALIZE);
+        }
+        timings.report(outputMessage.getHeaders());
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,40 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+/**
+ * Times the validation of request bodies for the {@code Server-Timing} header.
+ */
+class TimingValidator implements SmartValidator {
+    private final SmartValidator delegate;
+
+    TimingValidator(SmartValidator delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return delegate.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        validate(target, errors, new Object[0]);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) {
+            delegate.validate(target, errors, validationHints);
+            return;
+        }
+        timings.enter(RequestTimings.Phase.VALIDATE);
+        try {
+            delegate.validate(target, errors, validationHints);
+        } finally {
+            timings.exit(RequestTimings.Phase.VALIDATE);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package net.dmitrykornilov.pets.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.Appointment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+public interface AppointmentRepository extends Repository<Appointment, Integer> {
+
+    Appointment findById(int id) throws DataAccessException;
+
+    /**
+     * Appointments of a vet that overlap [from, to), ordered by start. Uses the (vet_id, start_time) index.
+     */
+    @Query("SELECT appointment FROM Appointment appointment WHERE appointment.vet.id = :vetId " +
+           "AND appointment.start < :to AND appointment.end > :from ORDER BY appointment.start")
+    List<Appointment> findByVetId(@Param("vetId") int vetId,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to) throws DataAccessException;
+
+    /**
+     * Appointments that have not ended by the given time; the vet and pet stay uninitialized references.
+     */
+    @Query("SELECT appointment FROM Appointment appointment WHERE appointment.end > :after")
+    List<Appointment> findEndingAfter(@Param("after") LocalDateTime after) throws DataAccessException;
+
+    void save(Appointment appointment) throws DataAccessException;
+
+    void delete(Appointment appointment) throws DataAccessException;
+}
@@ -1,22 +1,92 @@
 package net.dmitrykornilov.pets.repository;
 
+import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
 
 import net.dmitrykornilov.pets.model.Owner;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
 
 public interface OwnerRepository extends Repository<Owner, Integer> {
-    @Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName%")
+    /**
+     * The fields the owner search indexes.
+     */
+    interface SearchFields {
+        Integer getId();
+
+        Integer getVersion();
+
+        String getLastName();
+
+        String getFirstName();
+
+        String getCity();
+
+        String getTelephone();
+    }
+
+    @Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.type " +
+           "WHERE owner.lastName LIKE :lastName%")
     Collection<Owner> findByLastName(@Param("lastName") String lastName);
 
-    @Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
+    @Query("SELECT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.type WHERE owner.id =:id")
     Owner findById(@Param("id") int id);
 
-    void save(Owner owner) throws DataAccessException;
+    @Query("SELECT owner.id FROM Owner owner WHERE owner.id > :after ORDER BY owner.id")
+    List<Integer> findIdsAfter(@Param("after") int after, Limit limit) throws DataAccessException;
+
+    @Query("SELECT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.type " +
+           "WHERE owner.id IN :ids ORDER BY owner.id")
+    List<Owner> findAllByIdIn(@Param("ids") Collection<Integer> ids) throws DataAccessException;
+
+    /**
+     * The owners updated after {@code since}, or whose pets were added, updated or deleted after it.
+     */
+    @Query("SELECT owner.id FROM Owner owner WHERE owner.updatedAt > :since " +
+           "UNION SELECT pet.owner.id FROM Pet pet WHERE pet.updatedAt > :since " +
+           "UNION SELECT tombstone.ownerId FROM Tombstone tombstone " +
+           "WHERE tombstone.entity = 'pet' AND tombstone.deletedAt > :since")
+    List<Integer> findIdsChangedSince(@Param("since") Instant since) throws DataAccessException;
+
+    @Query("SELECT owner.id AS id, owner.version AS version, owner.lastName AS lastName, " +
+           "owner.firstName AS firstName, owner.city AS city, owner.telephone AS telephone FROM Owner owner")
+    List<SearchFields> findAllSearchFields() throws DataAccessException;
+
+    /**
+     * Inserts or updates the owner and, through the cascade, its pets.
+     *
+     * @return the stored owner, which is not the given one if that was detached
+     */
+    Owner save(Owner owner) throws DataAccessException;
+
+    /**
+     * Updates the owner's own columns in place, bumping its version, without loading it or its pets.
+     *
+     * @return the number of owners updated, 0 if there is none with the owner's id
+     */
+    @Modifying
+    @Query("UPDATE Owner owner SET owner.firstName = :#{#owner.firstName}, owner.lastName = :#{#owner.lastName}, " +
+           "owner.address = :#{#owner.address}, owner.city = :#{#owner.city}, " +
+           "owner.telephone = :#{#owner.telephone}, owner.version = owner.version + 1, owner.updatedAt = :now " +
+           "WHERE owner.id = :#{#owner.id}")
+    int update(@Param("owner") Owner owner, @Param("now") Instant now) throws DataAccessException;
+
+    @Query("SELECT owner.version FROM Owner owner WHERE owner.id = :id")
+    Integer findVersionById(@Param("id") int id) throws DataAccessException;
+
+    /**
+     * Deletes the owner without loading it; its pets have to be deleted first.
+     */
+    @Modifying
+    @Query("DELETE FROM Owner owner WHERE owner.id = :id")
+    int deleteById(@Param("id") int id) throws DataAccessException;
     
+    @Query("SELECT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.type")
 	Collection<Owner> findAll() throws DataAccessException;
 	
 	void delete(Owner owner) throws DataAccessException;
@@ -1,23 +1,87 @@
 package net.dmitrykornilov.pets.repository;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.dao.DataAccessException;
 import net.dmitrykornilov.pets.model.Pet;
 import net.dmitrykornilov.pets.model.PetType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 
 public interface PetRepository extends Repository<Pet, Integer> {
+    int STREAM_FETCH_SIZE = 500;
+
     @Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
     List<PetType> findPetTypes() throws DataAccessException;
 
-    Pet findById(int id) throws DataAccessException;
+    @Query("SELECT pet FROM Pet pet join fetch pet.type join fetch pet.owner WHERE pet.id = :id")
+    Pet findById(@Param("id") int id) throws DataAccessException;
 
     void save(Pet pet) throws DataAccessException;
+
+    /**
+     * The pet with its type if it belongs to the owner; the owner is left an uninitialized reference.
+     */
+    @Query("SELECT pet FROM Pet pet join fetch pet.type WHERE pet.id = :petId AND pet.owner.id = :ownerId")
+    Pet findByOwnerIdAndId(@Param("ownerId") int ownerId, @Param("petId") int petId) throws DataAccessException;
+
+    @Query("SELECT COUNT(pet) FROM Pet pet WHERE pet.id = :petId " +
+           "AND EXISTS (SELECT owner.id FROM Owner owner WHERE owner.id = :ownerId)")
+    long countPetAndOwner(@Param("ownerId") int ownerId, @Param("petId") int petId) throws DataAccessException;
+
+    @Query("SELECT pet FROM Pet pet join fetch pet.type join fetch pet.owner WHERE pet.id IN :ids ORDER BY pet.id")
+    List<Pet> findAllByIdIn(@Param("ids") Collection<Integer> ids) throws DataAccessException;
+
+    @Query("SELECT pet.owner.id FROM Pet pet WHERE pet.id = :id")
+    Integer findOwnerIdById(@Param("id") int id) throws DataAccessException;
+
+    @Query("SELECT pet.id FROM Pet pet WHERE pet.owner.id = :ownerId")
+    List<Integer> findIdsByOwnerId(@Param("ownerId") int ownerId) throws DataAccessException;
+
+    /**
+     * Updates the pet in place, bumping its version, without loading it.
+     *
+     * @return the number of pets updated, 0 if there is none with the id
+     */
+    @Modifying
+    @Query("UPDATE Pet pet SET pet.name = :name, pet.birthDate = :birthDate, pet.type = :type, " +
+           "pet.version = pet.version + 1, pet.updatedAt = :now WHERE pet.id = :id")
+    int update(@Param("id") int id, @Param("name") String name, @Param("birthDate") LocalDate birthDate,
+               @Param("type") PetType type, @Param("now") Instant now) throws DataAccessException;
+
+    @Modifying
+    @Query("DELETE FROM Pet pet WHERE pet.id = :id")
+    int deleteById(@Param("id") int id) throws DataAccessException;
+
+    @Modifying
+    @Query("DELETE FROM Pet pet WHERE pet.owner.id = :ownerId")
+    int deleteByOwnerId(@Param("ownerId") int ownerId) throws DataAccessException;
     
+    @Query("SELECT pet FROM Pet pet join fetch pet.type join fetch pet.owner")
 	Collection<Pet> findAll() throws DataAccessException;
 
+    @Query("SELECT pet FROM Pet pet join fetch pet.type join fetch pet.owner WHERE pet.updatedAt > :since ORDER BY pet.id")
+    List<Pet> findChangedSince(@Param("since") Instant since) throws DataAccessException;
+
+    /**
+     * Stream all pets ordered by id. The caller must consume and close the stream inside a transaction.
+     * Only the type is fetched; the owner stays an uninitialized reference that still knows its id.
+     */
+    @Query("SELECT pet FROM Pet pet join fetch pet.type ORDER BY pet.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Pet> streamAll() throws DataAccessException;
+
 	void delete(Pet pet) throws DataAccessException;
 }
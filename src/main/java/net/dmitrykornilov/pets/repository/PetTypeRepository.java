@@ -1,10 +1,15 @@
 package net.dmitrykornilov.pets.repository;
 
+import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
 
 import net.dmitrykornilov.pets.model.PetType;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 
 public interface PetTypeRepository extends Repository<PetType, Integer> {
 	PetType findById(int id) throws DataAccessException;
@@ -13,7 +18,14 @@ public interface PetTypeRepository extends Repository<PetType, Integer> {
 
 	Collection<PetType> findAll() throws DataAccessException;
 
+    @Query("SELECT ptype FROM PetType ptype WHERE ptype.updatedAt > :since ORDER BY ptype.id")
+    List<PetType> findChangedSince(@Param("since") Instant since) throws DataAccessException;
+
 	void save(PetType petType) throws DataAccessException;
 
 	void delete(PetType petType) throws DataAccessException;
+
+    @Modifying
+    @Query("DELETE FROM PetType ptype WHERE ptype.id = :id")
+    int deleteById(@Param("id") int id) throws DataAccessException;
 }
@@ -0,0 +1,18 @@
+package net.dmitrykornilov.pets.repository;
+
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.Specialty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+public interface SpecialtyRepository extends Repository<Specialty, Integer> {
+
+    Specialty findById(int id) throws DataAccessException;
+
+    @Query("SELECT specialty FROM Specialty specialty ORDER BY specialty.name")
+    List<Specialty> findAll() throws DataAccessException;
+
+    void save(Specialty specialty) throws DataAccessException;
+}
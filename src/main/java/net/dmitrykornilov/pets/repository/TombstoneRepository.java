@@ -0,0 +1,25 @@
+package net.dmitrykornilov.pets.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.Tombstone;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+public interface TombstoneRepository extends Repository<Tombstone, Integer> {
+    @Query("SELECT DISTINCT tombstone.entityId FROM Tombstone tombstone " +
+           "WHERE tombstone.entity = :entity AND tombstone.deletedAt > :since")
+    List<Integer> findEntityIdsDeletedSince(@Param("entity") String entity, @Param("since") Instant since)
+        throws DataAccessException;
+
+    @Query("SELECT COUNT(tombstone) FROM Tombstone tombstone WHERE tombstone.deletedAt < :before")
+    long countOlderThan(@Param("before") Instant before) throws DataAccessException;
+
+    @Modifying
+    @Query("DELETE FROM Tombstone tombstone WHERE tombstone.deletedAt < :before")
+    int deleteOlderThan(@Param("before") Instant before) throws DataAccessException;
+}
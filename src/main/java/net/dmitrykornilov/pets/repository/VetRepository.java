@@ -0,0 +1,25 @@
+package net.dmitrykornilov.pets.repository;
+
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.Vet;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+public interface VetRepository extends Repository<Vet, Integer> {
+
+    @Query("SELECT vet FROM Vet vet left join fetch vet.specialties WHERE vet.id = :id")
+    Vet findById(@Param("id") int id) throws DataAccessException;
+
+    @Query("SELECT DISTINCT vet FROM Vet vet left join fetch vet.specialties ORDER BY vet.id")
+    List<Vet> findAll() throws DataAccessException;
+
+    /**
+     * Returns the managed instance, which is the one whose version and specialties reflect the commit.
+     */
+    Vet save(Vet vet) throws DataAccessException;
+
+    void delete(Vet vet) throws DataAccessException;
+}
@@ -0,0 +1,30 @@
+package net.dmitrykornilov.pets.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.Visit;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+public interface VisitRepository extends Repository<Visit, Integer> {
+    /**
+     * Visits of a pet within [from, to], newest first, that come after the (beforeDate, beforeId) cursor in that
+     * order. Walks the (pet_id, visit_date, id) index backwards, so a page costs the same however deep it is.
+     */
+    @Query("SELECT visit FROM Visit visit WHERE visit.pet.id = :petId " +
+           "AND visit.date >= :from AND visit.date <= :to " +
+           "AND (visit.date < :beforeDate OR (visit.date = :beforeDate AND visit.id < :beforeId)) " +
+           "ORDER BY visit.date DESC, visit.id DESC")
+    List<Visit> findByPetId(@Param("petId") int petId,
+                            @Param("from") LocalDate from,
+                            @Param("to") LocalDate to,
+                            @Param("beforeDate") LocalDate beforeDate,
+                            @Param("beforeId") int beforeId,
+                            Limit limit) throws DataAccessException;
+
+    void save(Visit visit) throws DataAccessException;
+}
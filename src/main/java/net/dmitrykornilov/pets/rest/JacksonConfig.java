@@ -0,0 +1,19 @@
+package net.dmitrykornilov.pets.rest;
+
+import com.fasterxml.jackson.databind.Module;
+import org.openapitools.jackson.nullable.JsonNullableModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Jackson modules of the API; Spring Boot registers every {@link Module} bean with its object mapper.
+ */
+@Configuration(proxyBeanMethods = false)
+public class JacksonConfig {
+
+    // tells an absent field of a merge patch from one that is null
+    @Bean
+    Module jsonNullableModule() {
+        return new JsonNullableModule();
+    }
+}
@@ -0,0 +1,136 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+import net.dmitrykornilov.pets.mapper.AppointmentMapper;
+import net.dmitrykornilov.pets.model.Appointment;
+import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.model.Vet;
+import net.dmitrykornilov.pets.rest.dto.AppointmentDto;
+import net.dmitrykornilov.pets.service.PetsService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+@RestController
+@RequestMapping("/api")
+@Validated
+public class AppointmentRestController {
+    static final Duration DEFAULT_RANGE = Duration.ofDays(7);
+
+    private final PetsService petsService;
+
+    private final AppointmentMapper appointmentMapper;
+
+    public AppointmentRestController(PetsService petsService, AppointmentMapper appointmentMapper) {
+        this.petsService = petsService;
+        this.appointmentMapper = appointmentMapper;
+    }
+
+    /**
+     * The vet's appointments overlapping [from, to); from defaults to now and to to a week later.
+     */
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/vets/{vetId}/appointments",
+                    produces = {"application/json"})
+    public ResponseEntity<List<AppointmentDto>> listAppointments(@Min(0) @PathVariable("vetId") Integer vetId,
+                                                                 @RequestParam(value = "from", required = false)
+                                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                 @RequestParam(value = "to", required = false)
+                                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        from = from != null ? from : LocalDateTime.now();
+        to = to != null ? to : from.plus(DEFAULT_RANGE);
+        List<Appointment> appointments = this.petsService.findAppointmentsByVetId(vetId, from, to);
+        if (appointments.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(appointmentMapper.toAppointmentDtos(appointments), HttpStatus.OK);
+    }
+
+    /**
+     * The earliest free slot of the given length the vet has at or after {@code from}, which defaults to now.
+     * Answered from memory.
+     */
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/vets/{vetId}/appointments/next-free",
+                    produces = {"application/json"})
+    public ResponseEntity<AppointmentDto> findNextFreeSlot(@Min(0) @PathVariable("vetId") Integer vetId,
+                                                           @RequestParam(value = "from", required = false)
+                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                           @Min(1) @Max(24 * 60) @RequestParam(value = "minutes", defaultValue = "30") int minutes) {
+        from = from != null ? from : LocalDateTime.now();
+        var duration = Duration.ofMinutes(minutes);
+        LocalDateTime start = this.petsService.findNextFreeSlot(vetId, from, duration);
+        return new ResponseEntity<>(new AppointmentDto(null, vetId, null, start, start.plus(duration), null),
+                                    HttpStatus.OK);
+    }
+
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/appointments/{appointmentId}",
+                    produces = {"application/json"})
+    public ResponseEntity<AppointmentDto> getAppointment(@Min(0) @PathVariable("appointmentId") Integer appointmentId) {
+        Appointment appointment = this.petsService.findAppointmentById(appointmentId);
+        if (appointment == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(appointmentMapper.toAppointmentDto(appointment), HttpStatus.OK);
+    }
+
+    /**
+     * Books a future appointment; 409 if it overlaps another appointment of the vet or the pet.
+     */
+    @RequestMapping(method = RequestMethod.POST,
+                    value = "/appointments",
+                    produces = {"application/json"},
+                    consumes = {"application/json"})
+    public ResponseEntity<AppointmentDto> bookAppointment(@Valid @RequestBody AppointmentDto appointmentDto) {
+        if ((Objects.nonNull(appointmentDto.getId()) && !appointmentDto.getId().equals(0))
+            || !appointmentDto.getEnd().isAfter(appointmentDto.getStart())
+            || appointmentDto.getStart().isBefore(LocalDateTime.now())) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Vet vet = this.petsService.findVetById(appointmentDto.getVetId());
+        Pet pet = this.petsService.findPetById(appointmentDto.getPetId());
+        if (vet == null || pet == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Appointment appointment = appointmentMapper.toAppointment(appointmentDto);
+        appointment.setId(null);
+        appointment.setVet(vet);
+        appointment.setPet(pet);
+        if (!this.petsService.bookAppointment(appointment)) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+        var headers = new HttpHeaders();
+        headers.setLocation(UriComponentsBuilder.newInstance().path("/api/appointments/{id}")
+                                    .buildAndExpand(appointment.getId()).toUri());
+        return new ResponseEntity<>(appointmentMapper.toAppointmentDto(appointment), headers, HttpStatus.CREATED);
+    }
+
+    @RequestMapping(method = RequestMethod.DELETE,
+                    value = "/appointments/{appointmentId}",
+                    produces = {"application/json"})
+    public ResponseEntity<AppointmentDto> cancelAppointment(@Min(0) @PathVariable("appointmentId") Integer appointmentId) {
+        Appointment appointment = this.petsService.findAppointmentById(appointmentId);
+        if (appointment == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        this.petsService.cancelAppointment(appointment);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
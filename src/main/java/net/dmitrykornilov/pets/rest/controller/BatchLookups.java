@@ -0,0 +1,54 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import net.dmitrykornilov.pets.model.BaseEntity;
+import net.dmitrykornilov.pets.rest.dto.BatchDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Lookups of many entities by id in one request: {@code GET ?ids=1,2,3}, or a POST of a JSON array of ids for
+ * lists too long for a URL. All ids are resolved by the service in one transaction and mapped in one pass.
+ * Duplicate ids are answered once; more than {@link #MAX_IDS} distinct ids get 400.
+ */
+final class BatchLookups {
+    static final int MAX_IDS = 1000;
+
+    private BatchLookups() {
+    }
+
+    static <E extends BaseEntity, D> ResponseEntity<BatchDto<D>> lookup(Collection<Integer> ids,
+                                                                       Function<Collection<Integer>, List<E>> find,
+                                                                       Function<Collection<E>, ? extends Collection<D>> toDtos) {
+        Set<Integer> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        if (distinct.size() > MAX_IDS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Map<Integer, E> byId = new HashMap<>();
+        if (!distinct.isEmpty()) {
+            for (E entity : find.apply(distinct)) {
+                byId.put(entity.getId(), entity);
+            }
+        }
+        List<E> found = new ArrayList<>(byId.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : distinct) {
+            E entity = byId.get(id);
+            if (entity != null) {
+                found.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new ResponseEntity<>(new BatchDto<>(List.copyOf(toDtos.apply(found)), missing), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,114 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.dmitrykornilov.pets.rest.dto.ChangeDto;
+import net.dmitrykornilov.pets.service.ChangeFeed;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api")
+@Validated
+public class ChangeFeedRestController {
+    static final int BATCH_SIZE = 100;
+
+    private final ChangeFeed changeFeed;
+
+    private final Duration heartbeat;
+
+    // one thread per subscriber, so a client that reads slowly only holds up its own stream
+    private final ExecutorService streams;
+
+    public ChangeFeedRestController(ChangeFeed changeFeed,
+                                    @Value("${pets.changes.max-subscribers:100}") int maxSubscribers,
+                                    @Value("${pets.changes.heartbeat:15s}") Duration heartbeat) {
+        this.changeFeed = changeFeed;
+        this.heartbeat = heartbeat;
+        this.streams = new ThreadPoolExecutor(0, maxSubscribers, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                                              new CustomizableThreadFactory("change-feed-"));
+    }
+
+    /**
+     * Streams the writes to owners, pets and pet types as server-sent events named {@code change}, with the
+     * sequence number as the event id. A client that reconnects with {@code Last-Event-ID} gets the changes it
+     * missed; without it the stream starts with the next change. If the missed changes are no longer buffered,
+     * or the client reads so slowly that its next change is overwritten, it gets a {@code reset} event and the
+     * stream ends: the client should reload what it shows and reconnect without {@code Last-Event-ID}.
+     * 503 when the maximum number of subscribers is reached.
+     */
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/changes",
+                    produces = {MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<SseEmitter> streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long after = lastEventId != null ? lastEventId : changeFeed.lastSequence();
+        // the stream ends with the client or a reset, not with the servlet container's async timeout
+        var emitter = new SseEmitter(0L);
+        try {
+            streams.execute(() -> stream(emitter, after));
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return new ResponseEntity<>(emitter, HttpStatus.OK);
+    }
+
+    @PreDestroy
+    void closeStreams() {
+        streams.shutdownNow();
+    }
+
+    private void stream(SseEmitter emitter, long after) {
+        long cursor = after;
+        try {
+            while (true) {
+                List<ChangeFeed.Change> changes = changeFeed.await(cursor, BATCH_SIZE, heartbeat);
+                if (changes.isEmpty()) {
+                    // also finds out whether the client is still there
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+                for (ChangeFeed.Change change : changes) {
+                    emitter.send(SseEmitter.event()
+                                     .id(Long.toString(change.sequence()))
+                                     .name("change")
+                                     .data(toChangeDto(change), MediaType.APPLICATION_JSON));
+                    cursor = change.sequence();
+                }
+            }
+        } catch (ChangeFeed.GapException e) {
+            try {
+                emitter.send(SseEmitter.event().name("reset").data(e.getMessage()));
+                emitter.complete();
+            } catch (IOException | IllegalStateException gone) {
+                // the client is gone, the container cleans up
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // the client is gone, the container cleans up
+        }
+    }
+
+    private static ChangeDto toChangeDto(ChangeFeed.Change change) {
+        return new ChangeDto(change.sequence(), change.entity().name().toLowerCase(Locale.ROOT), change.id(),
+                             change.action().name().toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,85 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import jakarta.validation.Validator;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * The PUT and PATCH of a single entity that has been read: an {@code If-Match} header is checked against the
+ * entity's tag, the new representation is written onto the entity, and the entity is saved with the version it
+ * was read with, so that a write committed after the read answers 412 as well.
+ * <p>
+ * A merge patch is applied to a representation of the current entity, which has to pass validation like the body
+ * of a PUT. Fields set to the value they already had are not dirty, so the update leaves their columns out. The
+ * service hands out copies of its entities, so a rejected request leaves nothing behind.
+ *
+ * @param <E> the entity
+ * @param <D> its representation
+ */
+final class ConditionalWrites<E, D> {
+    private final Function<E, String> etag;
+
+    private final Function<E, D> toDto;
+
+    private final BiPredicate<E, D> apply;
+
+    private final Consumer<E> save;
+
+    private final Validator validator;
+
+    /**
+     * @param apply writes a representation onto the entity; false if it refers to something that does not exist,
+     *              which answers 400
+     */
+    ConditionalWrites(Function<E, String> etag, Function<E, D> toDto, BiPredicate<E, D> apply, Consumer<E> save,
+                      Validator validator) {
+        this.etag = etag;
+        this.toDto = toDto;
+        this.apply = apply;
+        this.save = save;
+        this.validator = validator;
+    }
+
+    /**
+     * Replaces the current entity, null if there is none, with the validated representation; answers 204.
+     */
+    ResponseEntity<D> replace(E current, String ifMatch, D dto) {
+        return write(current, ifMatch, entity -> dto, HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Applies a merge patch to a representation of the current entity, null if there is none; answers 200.
+     */
+    ResponseEntity<D> patch(E current, String ifMatch, Consumer<D> patch) {
+        return write(current, ifMatch, entity -> {
+            D dto = toDto.apply(entity);
+            patch.accept(dto);
+            return validator.validate(dto).isEmpty() ? dto : null;
+        }, HttpStatus.OK);
+    }
+
+    private ResponseEntity<D> write(E current, String ifMatch, Function<E, D> representation, HttpStatus status) {
+        if (current == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (EntityTags.preconditionFailed(ifMatch, etag.apply(current))) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+        D dto = representation.apply(current);
+        if (dto == null || !apply.test(current, dto)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            save.accept(current);
+        } catch (OptimisticLockingFailureException e) {
+            // someone else updated the entity since we read it
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+        return new ResponseEntity<>(toDto.apply(current), status);
+    }
+}
@@ -0,0 +1,119 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.BaseEntity;
+import net.dmitrykornilov.pets.model.Owner;
+import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.model.PetType;
+
+/**
+ * Strong entity tags derived from entity versions, and the precondition checks of conditional requests.
+ * <p>
+ * A tag starts with the version of the entity itself. Representations that embed other entities (an owner's pets,
+ * a pet's type) append their versions, because changing those does not bump the embedding entity; lists of them
+ * are tagged by a digest of their ids and versions, sorted by id.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static String of(PetType petType) {
+        return quote(Integer.toString(version(petType)));
+    }
+
+    static String of(Pet pet) {
+        return quote(version(pet) + "-" + Integer.toHexString(version(pet.getType())));
+    }
+
+    static String of(Owner owner) {
+        var versions = new StringBuilder();
+        for (Pet pet : byId(owner.getPets())) {
+            versions.append(pet.getId()).append(':').append(version(pet)).append(':')
+                .append(pet.getType() == null ? null : pet.getType().getId()).append(':')
+                .append(version(pet.getType())).append(',');
+        }
+        return quote(version(owner) + "-" + digest(versions));
+    }
+
+    static String ofPetTypes(Collection<PetType> petTypes) {
+        var versions = new StringBuilder();
+        for (PetType petType : byId(petTypes)) {
+            versions.append(petType.getId()).append(':').append(version(petType)).append(',');
+        }
+        return quote(digest(versions));
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches the tag, in which case a GET should answer 304.
+     * Uses the weak comparison RFC 9110 prescribes for this header.
+     */
+    static boolean notModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || stripWeak(candidate).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether an {@code If-Match} header rules out the change, in which case the request should answer 412.
+     * Uses strong comparison, so weak tags never match.
+     */
+    static boolean preconditionFailed(String ifMatch, String etag) {
+        if (ifMatch == null) {
+            return false;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int version(BaseEntity entity) {
+        // entities that were never persisted have no version yet
+        return entity == null || entity.getVersion() == null ? 0 : entity.getVersion();
+    }
+
+    // sorted, so that the tag does not depend on the iteration order of the entities
+    private static <E extends BaseEntity> List<E> byId(Collection<E> entities) {
+        List<E> sorted = new ArrayList<>(entities);
+        sorted.sort(Comparator.comparing(BaseEntity::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return sorted;
+    }
+
+    // unlike a hash code, different ids and versions practically never get the same digest
+    private static String digest(CharSequence versions) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(versions.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
@@ -1,73 +1,190 @@
 package net.dmitrykornilov.pets.rest.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import net.dmitrykornilov.pets.mapper.OwnerMapper;
 import net.dmitrykornilov.pets.mapper.PetMapper;
 import net.dmitrykornilov.pets.model.Owner;
 import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.model.PetType;
+import net.dmitrykornilov.pets.rest.dto.BatchDto;
 import net.dmitrykornilov.pets.rest.dto.OwnerDto;
+import net.dmitrykornilov.pets.rest.dto.OwnerImportResultDto;
+import net.dmitrykornilov.pets.rest.dto.OwnerPatchDto;
 import net.dmitrykornilov.pets.rest.dto.PetDto;
+import net.dmitrykornilov.pets.rest.dto.SyncDto;
 import net.dmitrykornilov.pets.service.PetsService;
-import jakarta.transaction.Transactional;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @RestController
 @RequestMapping("/api")
 @Validated
 public class OwnerRestController {
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final PetsService petsService;
 
     private final OwnerMapper ownerMapper;
 
     private final PetMapper petMapper;
 
+    private final ObjectReader ownerReader;
+
+    private final Validator validator;
+
+    private final ConditionalWrites<Owner, OwnerDto> writes;
+
+    private final int importChunkSize;
+
     public OwnerRestController(PetsService petsService,
                                OwnerMapper ownerMapper,
-                               PetMapper petMapper) {
+                               PetMapper petMapper,
+                               ObjectMapper objectMapper,
+                               Validator validator,
+                               @Value("${pets.import.chunk-size:500}") int importChunkSize) {
         this.petsService = petsService;
         this.ownerMapper = ownerMapper;
         this.petMapper = petMapper;
+        this.ownerReader = objectMapper.readerFor(OwnerDto.class);
+        this.validator = validator;
+        this.writes = new ConditionalWrites<>(EntityTags::of, ownerMapper::toOwnerDto, OwnerRestController::apply,
+                                              petsService::saveOwner, validator);
+        this.importChunkSize = importChunkSize;
     }
 
     @RequestMapping(method = RequestMethod.GET,
                     value = "/owners",
                     produces = {"application/json"})
-    public ResponseEntity<List<OwnerDto>> listOwners(@RequestParam(value = "lastName", required = false) String lastName) {
-        Collection<Owner> owners;
+    public ResponseEntity<List<OwnerDto>> listOwners(@RequestParam(value = "lastName", required = false) String lastName,
+                                                     @RequestParam(value = "q", required = false) String query,
+                                                     @RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                     @Min(0) @RequestParam(value = "after", defaultValue = "0") int after,
+                                                     @Min(0) @RequestParam(value = "offset", defaultValue = "0") int offset) {
         if (lastName != null) {
-            owners = this.petsService.findOwnerByLastName(lastName);
-        } else {
-            owners = this.petsService.findAllOwners();
+            Collection<Owner> owners = this.petsService.findOwnerByLastName(lastName);
+            if (owners.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(ownerMapper.toOwnerDtoCollection(owners), HttpStatus.OK);
+        }
+
+        limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (query != null) {
+            return searchOwners(query, offset, limit);
+        }
+        List<OwnerDto> page = ownerMapper.toOwnerDtoCollection(this.petsService.findOwnersPage(after, limit));
+        if (page.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        var headers = new HttpHeaders();
+        if (page.size() == limit) {
+            // a full page means there may be more rows; the next page starts after the last id we returned
+            var next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("limit", limit)
+                    .replaceQueryParam("after", page.get(page.size() - 1).getId())
+                    .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
         }
-        if (owners.isEmpty()) {
+        return new ResponseEntity<>(page, headers, HttpStatus.OK);
+    }
+
+    /**
+     * The owners, with their pets, with the given ids; see {@link BatchLookups}.
+     */
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/owners",
+                    params = "ids",
+                    produces = {"application/json"})
+    public ResponseEntity<BatchDto<OwnerDto>> getOwners(@RequestParam("ids") List<Integer> ids) {
+        return BatchLookups.lookup(ids, this.petsService::findOwnersByIds, ownerMapper::toOwnerDtoCollection);
+    }
+
+    @RequestMapping(method = RequestMethod.POST,
+                    value = "/owners/lookup",
+                    produces = {"application/json"},
+                    consumes = {"application/json"})
+    public ResponseEntity<BatchDto<OwnerDto>> lookupOwners(@RequestBody List<Integer> ids) {
+        return getOwners(ids);
+    }
+
+    /**
+     * The owners, with their pets, that changed after the sync token; see {@link SyncTokens}.
+     */
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/owners",
+                    params = "since",
+                    produces = {"application/json"})
+    public ResponseEntity<SyncDto<OwnerDto>> syncOwners(@RequestParam("since") long since) {
+        return SyncTokens.sync(since, this.petsService::findOwnersChangedSince, ownerMapper::toOwnerDtoCollection);
+    }
+
+    /**
+     * A ranked page of the owners matching a search box query; a full page links to the next one.
+     */
+    private ResponseEntity<List<OwnerDto>> searchOwners(String query, int offset, int limit) {
+        List<OwnerDto> page = ownerMapper.toOwnerDtoCollection(this.petsService.searchOwners(query, offset, limit));
+        if (page.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(ownerMapper.toOwnerDtoCollection(owners), HttpStatus.OK);
+        var headers = new HttpHeaders();
+        if (page.size() == limit) {
+            var next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("limit", limit)
+                    .replaceQueryParam("offset", offset + limit)
+                    .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(page, headers, HttpStatus.OK);
     }
 
     @RequestMapping(method = RequestMethod.GET,
                     value = "/owners/{ownerId}",
                     produces = {"application/json"})
-    public ResponseEntity<OwnerDto> getOwner(@Min(0) @PathVariable("ownerId") Integer ownerId) {
+    public ResponseEntity<OwnerDto> getOwner(@Min(0) @PathVariable("ownerId") Integer ownerId,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         Owner owner = this.petsService.findOwnerById(ownerId);
         if (owner == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(ownerMapper.toOwnerDto(owner), HttpStatus.OK);
+        var headers = new HttpHeaders();
+        headers.setETag(EntityTags.of(owner));
+        if (EntityTags.notModified(ifNoneMatch, headers.getETag())) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        return new ResponseEntity<>(ownerMapper.toOwnerDto(owner), headers, HttpStatus.OK);
     }
 
     @RequestMapping(method = RequestMethod.POST,
@@ -77,8 +194,10 @@ public class OwnerRestController {
     public ResponseEntity<OwnerDto> addOwner(@Valid @RequestBody OwnerDto ownerDto) {
         var headers = new HttpHeaders();
 
-        ownerDto.setId(null);
-        var owner = ownerMapper.toOwner(ownerDto);
+        var owner = toNewOwner(ownerDto, new ArrayList<>());
+        if (owner == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
         this.petsService.saveOwner(owner);
 
         var dto = ownerMapper.toOwnerDto(owner);
@@ -86,35 +205,186 @@ public class OwnerRestController {
         return new ResponseEntity<>(dto, headers, HttpStatus.CREATED);
     }
 
+    @RequestMapping(method = RequestMethod.POST,
+                    value = "/owners/bulk",
+                    produces = {"application/json"},
+                    consumes = {"application/json", "application/x-ndjson"})
+    public ResponseEntity<List<OwnerImportResultDto>> importOwners(InputStream body) throws IOException {
+        List<OwnerImportResultDto> results = new ArrayList<>();
+        List<PendingOwner> chunk = new ArrayList<>(importChunkSize);
+        int index = 0;
+        // a JSON array and a stream of whitespace separated owners are read the same way, one owner at a time
+        try (MappingIterator<OwnerDto> items = ownerReader.readValues(body)) {
+            while (items.hasNextValue()) {
+                OwnerDto ownerDto;
+                try {
+                    ownerDto = items.nextValue();
+                } catch (DatabindException e) {
+                    // the iterator skips the rest of a malformed item and carries on with the next one
+                    results.add(OwnerImportResultDto.rejected(index++, List.of(e.getOriginalMessage())));
+                    continue;
+                }
+                int current = index++;
+                List<String> errors = new ArrayList<>();
+                Owner owner = toNewOwner(ownerDto, errors);
+                if (owner == null) {
+                    results.add(OwnerImportResultDto.rejected(current, errors));
+                    continue;
+                }
+                chunk.add(new PendingOwner(current, owner));
+                if (chunk.size() == importChunkSize) {
+                    saveChunk(chunk, results);
+                }
+            }
+        } catch (StreamReadException e) {
+            // invalid JSON; nothing after this point can be read
+            results.add(OwnerImportResultDto.rejected(index, List.of("unreadable input: " + e.getOriginalMessage())));
+        }
+        saveChunk(chunk, results);
+        results.sort(Comparator.comparingInt(OwnerImportResultDto::getIndex));
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    /**
+     * Validate the owner and resolve its pets' types, returning the new entity or null with the reasons in errors.
+     * The types are the stored entities, since a type mapped from the DTO has no version and would pass for a new one.
+     */
+    private Owner toNewOwner(OwnerDto ownerDto, List<String> errors) {
+        if (ownerDto == null) {
+            errors.add("must not be null");
+            return null;
+        }
+        for (ConstraintViolation<OwnerDto> violation : validator.validate(ownerDto)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        if (!errors.isEmpty()) {
+            return null;
+        }
+        if (ownerDto.getPets() == null) {
+            ownerDto.setPets(new ArrayList<>());
+        }
+        Map<Integer, PetType> petTypes = new HashMap<>();
+        List<PetDto> pets = ownerDto.getPets();
+        for (int i = 0; i < pets.size(); i++) {
+            // the validator skips null elements
+            if (pets.get(i) == null) {
+                errors.add("pets[" + i + "]: must not be null");
+                continue;
+            }
+            Integer typeId = pets.get(i).getType().getId();
+            if (typeId == null || petTypes.computeIfAbsent(typeId, this.petsService::findPetTypeById) == null) {
+                errors.add("pets[" + i + "].type.id: unknown pet type " + typeId);
+            }
+        }
+        if (!errors.isEmpty()) {
+            return null;
+        }
+
+        ownerDto.setId(null);
+        Owner owner = ownerMapper.toOwner(ownerDto);
+        for (Pet pet : owner.getPets()) {
+            pet.setId(null);
+            pet.setOwner(owner);
+            pet.setType(petTypes.get(pet.getType().getId()));
+        }
+        return owner;
+    }
+
+    private void saveChunk(List<PendingOwner> chunk, List<OwnerImportResultDto> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            this.petsService.saveOwners(chunk.stream().map(PendingOwner::owner).toList());
+            for (PendingOwner pending : chunk) {
+                results.add(OwnerImportResultDto.created(pending.index(), pending.owner().getId()));
+            }
+        } catch (DataAccessException e) {
+            // the chunk is saved in one transaction, so none of it was kept
+            List<String> errors = List.of("not saved: " + e.getMostSpecificCause().getMessage());
+            for (PendingOwner pending : chunk) {
+                results.add(OwnerImportResultDto.rejected(pending.index(), errors));
+            }
+        }
+        chunk.clear();
+    }
+
+    private record PendingOwner(int index, Owner owner) {
+    }
+
     @RequestMapping(method = RequestMethod.PUT,
                     value = "/owners/{ownerId}",
                     produces = {"application/json"},
                     consumes = {"application/json"})
     public ResponseEntity<OwnerDto> updateOwner(@Min(0) @PathVariable("ownerId") Integer ownerId,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                 @Valid @RequestBody OwnerDto ownerDto) {
-        Owner currentOwner = this.petsService.findOwnerById(ownerId);
-        if (currentOwner == null) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        if (ifMatch == null) {
+            // nothing to check against the current owner, so update it in place without loading it
+            Owner owner = ownerMapper.toOwner(ownerDto);
+            owner.setId(ownerId);
+            if (this.petsService.updateOwnerFields(owner) == 0) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            ownerDto.setId(ownerId);
+            return new ResponseEntity<>(ownerDto, HttpStatus.NO_CONTENT);
         }
-        currentOwner.setAddress(ownerDto.getAddress());
-        currentOwner.setCity(ownerDto.getCity());
-        currentOwner.setFirstName(ownerDto.getFirstName());
-        currentOwner.setLastName(ownerDto.getLastName());
-        currentOwner.setTelephone(ownerDto.getTelephone());
-        this.petsService.saveOwner(currentOwner);
-        return new ResponseEntity<>(ownerMapper.toOwnerDto(currentOwner), HttpStatus.NO_CONTENT);
+        return writes.replace(this.petsService.findOwnerById(ownerId), ifMatch, ownerDto);
+    }
+
+    @RequestMapping(method = RequestMethod.PATCH,
+                    value = "/owners/{ownerId}",
+                    produces = {"application/json"},
+                    consumes = {"application/merge-patch+json"})
+    public ResponseEntity<OwnerDto> patchOwner(@Min(0) @PathVariable("ownerId") Integer ownerId,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               @RequestBody OwnerPatchDto patch) {
+        return writes.patch(this.petsService.findOwnerById(ownerId), ifMatch, ownerDto -> {
+            patch.getFirstName().ifPresent(ownerDto::setFirstName);
+            patch.getLastName().ifPresent(ownerDto::setLastName);
+            patch.getAddress().ifPresent(ownerDto::setAddress);
+            patch.getCity().ifPresent(ownerDto::setCity);
+            patch.getTelephone().ifPresent(ownerDto::setTelephone);
+        });
+    }
+
+    private static boolean apply(Owner owner, OwnerDto ownerDto) {
+        owner.setFirstName(ownerDto.getFirstName());
+        owner.setLastName(ownerDto.getLastName());
+        owner.setAddress(ownerDto.getAddress());
+        owner.setCity(ownerDto.getCity());
+        owner.setTelephone(ownerDto.getTelephone());
+        return true;
     }
 
-    @Transactional
     @RequestMapping(method = RequestMethod.DELETE,
                     value = "/owners/{ownerId}",
                     produces = {"application/json"})
-    public ResponseEntity<OwnerDto> deleteOwner(@Min(0) @PathVariable("ownerId") Integer ownerId) {
+    public ResponseEntity<OwnerDto> deleteOwner(@Min(0) @PathVariable("ownerId") Integer ownerId,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch == null) {
+            try {
+                if (this.petsService.deleteOwnerById(ownerId) == 0) {
+                    return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                }
+            } catch (DataIntegrityViolationException e) {
+                // a pet of the owner still has appointments or visits
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
         Owner owner = this.petsService.findOwnerById(ownerId);
         if (owner == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        this.petsService.deleteOwner(owner);
+        if (EntityTags.preconditionFailed(ifMatch, EntityTags.of(owner))) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+        try {
+            this.petsService.deleteOwner(owner);
+        } catch (DataIntegrityViolationException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
@@ -126,6 +396,7 @@ public class OwnerRestController {
                                                 @Valid @RequestBody PetDto petDto) {
         var headers = new HttpHeaders();
         var pet = petMapper.toPet(petDto);
+        pet.setId(null);
 
         var owner = petsService.findOwnerById(ownerId);
         pet.setOwner(owner);
@@ -145,16 +416,14 @@ public class OwnerRestController {
                     produces = {"application/json"})
     public ResponseEntity<PetDto> getOwnersPet(@Min(0) @PathVariable("ownerId") Integer ownerId,
                                                @Min(0) @PathVariable("petId") Integer petId) {
-        Owner owner = this.petsService.findOwnerById(ownerId);
-        Pet pet = this.petsService.findPetById(petId);
-        if (owner == null || pet == null) {
+        Pet pet = this.petsService.findPetByOwnerIdAndId(ownerId, petId);
+        if (pet != null) {
+            return new ResponseEntity<>(petMapper.toPetDto(pet), HttpStatus.OK);
+        }
+        // only a miss pays for telling a missing owner or pet from a pet of another owner
+        if (!this.petsService.existsOwnerAndPet(ownerId, petId)) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        } else {
-            if (!pet.getOwner().equals(owner)) {
-                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-            } else {
-                return new ResponseEntity<>(petMapper.toPetDto(pet), HttpStatus.OK);
-            }
         }
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
 }
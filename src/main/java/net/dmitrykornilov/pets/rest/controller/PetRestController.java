@@ -1,43 +1,110 @@
 package net.dmitrykornilov.pets.rest.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import net.dmitrykornilov.pets.mapper.PetMapper;
 import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.model.PetType;
+import net.dmitrykornilov.pets.rest.dto.BatchDto;
 import net.dmitrykornilov.pets.rest.dto.PetDto;
+import net.dmitrykornilov.pets.rest.dto.PetPatchDto;
+import net.dmitrykornilov.pets.rest.dto.PetTypeDto;
+import net.dmitrykornilov.pets.rest.dto.SyncDto;
 import net.dmitrykornilov.pets.service.PetsService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.Min;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("api")
 public class PetRestController {
+    private static final int FLUSH_INTERVAL = 500;
+
     private final PetsService petsService;
 
     private final PetMapper petMapper;
 
-    public PetRestController(PetsService petsService, PetMapper petMapper) {
+    private final ObjectWriter petWriter;
+
+    private final ConditionalWrites<Pet, PetDto> writes;
+
+    public PetRestController(PetsService petsService, PetMapper petMapper, ObjectMapper objectMapper,
+                             Validator validator) {
         this.petsService = petsService;
         this.petMapper = petMapper;
+        this.writes = new ConditionalWrites<>(EntityTags::of, petMapper::toPetDto, this::apply, petsService::savePet,
+                                              validator);
+        this.petWriter = objectMapper.writerFor(PetDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @RequestMapping(method = RequestMethod.GET,
                     value = "/pets/{petId}",
                     produces = { "application/json" })
-    public ResponseEntity<PetDto> getPet(@Min(0) @PathVariable("petId") Integer petId) {
-        PetDto pet = petMapper.toPetDto(this.petsService.findPetById(petId));
+    public ResponseEntity<PetDto> getPet(@Min(0) @PathVariable("petId") Integer petId,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Pet pet = this.petsService.findPetById(petId);
         if (pet == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(pet, HttpStatus.OK);
+        var headers = new HttpHeaders();
+        headers.setETag(EntityTags.of(pet));
+        if (EntityTags.notModified(ifNoneMatch, headers.getETag())) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        return new ResponseEntity<>(petMapper.toPetDto(pet), headers, HttpStatus.OK);
+    }
+
+    /**
+     * The pets with the given ids; see {@link BatchLookups}.
+     */
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/pets",
+                    params = "ids",
+                    produces = { "application/json" })
+    public ResponseEntity<BatchDto<PetDto>> getPets(@RequestParam("ids") List<Integer> ids) {
+        return BatchLookups.lookup(ids, this.petsService::findPetsByIds, petMapper::toPetsDto);
+    }
+
+    @RequestMapping(method = RequestMethod.POST,
+                    value = "/pets/lookup",
+                    produces = { "application/json" },
+                    consumes = { "application/json" })
+    public ResponseEntity<BatchDto<PetDto>> lookupPets(@RequestBody List<Integer> ids) {
+        return getPets(ids);
+    }
+
+    /**
+     * The pets that changed after the sync token; see {@link SyncTokens}.
+     */
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/pets",
+                    params = "since",
+                    produces = { "application/json" })
+    public ResponseEntity<SyncDto<PetDto>> syncPets(@RequestParam("since") long since) {
+        return SyncTokens.sync(since, this.petsService::findPetsChangedSince, petMapper::toPetsDto);
     }
 
     @RequestMapping(method = RequestMethod.GET,
@@ -51,32 +118,114 @@ public class PetRestController {
         return new ResponseEntity<>(pets, HttpStatus.OK);
     }
 
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/pets",
+                    produces = { MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<StreamingResponseBody> exportPets() {
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        return new ResponseEntity<>(out -> writePets(petWriter.withRootValueSeparator("\n").writeValues(out)),
+                                    headers, HttpStatus.OK);
+    }
+
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/pets",
+                    params = "stream=true",
+                    produces = { "application/json" })
+    public ResponseEntity<StreamingResponseBody> streamPets() {
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new ResponseEntity<>(out -> writePets(petWriter.writeValuesAsArray(out)), headers, HttpStatus.OK);
+    }
+
+    private void writePets(SequenceWriter sequence) throws IOException {
+        try (sequence) {
+            var written = new int[1];
+            this.petsService.streamAllPets(pet -> {
+                try {
+                    sequence.write(petMapper.toPetDto(pet));
+                    if (++written[0] % FLUSH_INTERVAL == 0) {
+                        sequence.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
     @RequestMapping(method = RequestMethod.PUT,
                     value = "/pets/{petId}",
                     produces = { "application/json" },
                     consumes = { "application/json" })
     public ResponseEntity<PetDto> updatePet(@Min(0) @PathVariable("petId") Integer petId,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                             @Valid @RequestBody PetDto petDto) {
-        Pet currentPet = this.petsService.findPetById(petId);
-        if (currentPet == null) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        if (ifMatch == null) {
+            // nothing to check against the current pet, so update it in place without loading it; the type is
+            // looked up first, as the update would fail on the foreign key of an unknown one
+            PetType type = findType(petDto.getType());
+            if (type == null) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            Pet pet = petMapper.toPet(petDto);
+            pet.setId(petId);
+            pet.setType(type);
+            if (this.petsService.updatePetFields(pet) == 0) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            petDto.setId(petId);
+            return new ResponseEntity<>(petDto, HttpStatus.NO_CONTENT);
         }
-        currentPet.setBirthDate(petDto.getBirthDate());
-        currentPet.setName(petDto.getName());
-        currentPet.setType(petMapper.toPetType(petDto.getType()));
-        this.petsService.savePet(currentPet);
-        return new ResponseEntity<>(petMapper.toPetDto(currentPet), HttpStatus.NO_CONTENT);
+        return writes.replace(this.petsService.findPetById(petId), ifMatch, petDto);
+    }
+
+    @RequestMapping(method = RequestMethod.PATCH,
+                    value = "/pets/{petId}",
+                    produces = { "application/json" },
+                    consumes = { "application/merge-patch+json" })
+    public ResponseEntity<PetDto> patchPet(@Min(0) @PathVariable("petId") Integer petId,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                           @RequestBody PetPatchDto patch) {
+        return writes.patch(this.petsService.findPetById(petId), ifMatch, petDto -> {
+            patch.getName().ifPresent(petDto::setName);
+            patch.getBirthDate().ifPresent(petDto::setBirthDate);
+            // a patch may name the type by its id alone, which would not pass validation
+            patch.getType().ifPresent(typeDto -> {
+                PetType type = findType(typeDto);
+                petDto.setType(type == null ? typeDto : petMapper.toPetTypeDto(type));
+            });
+        });
     }
 
     @RequestMapping(method = RequestMethod.DELETE,
                     value = "/pets/{petId}",
                     produces = { "application/json" })
-    public ResponseEntity<PetDto> deletePet(@Min(0) @PathVariable("petId") Integer petId) {
+    public ResponseEntity<PetDto> deletePet(@Min(0) @PathVariable("petId") Integer petId,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch == null) {
+            try {
+                if (this.petsService.deletePetById(petId) == 0) {
+                    return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                }
+            } catch (DataIntegrityViolationException e) {
+                // the pet still has appointments or visits
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
         Pet pet = this.petsService.findPetById(petId);
         if (pet == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        this.petsService.deletePet(pet);
+        if (EntityTags.preconditionFailed(ifMatch, EntityTags.of(pet))) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+        try {
+            this.petsService.deletePet(pet);
+        } catch (DataIntegrityViolationException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
@@ -85,7 +234,33 @@ public class PetRestController {
                     produces = { "application/json" },
                     consumes = { "application/json" })
     public ResponseEntity<PetDto> addPet(@Valid @RequestBody PetDto petDto) {
-        this.petsService.savePet(petMapper.toPet(petDto));
+        PetType type = findType(petDto.getType());
+        if (type == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Pet pet = petMapper.toPet(petDto);
+        pet.setId(null);
+        pet.setType(type);
+        this.petsService.savePet(pet);
         return new ResponseEntity<>(petDto, HttpStatus.OK);
     }
+
+    private boolean apply(Pet pet, PetDto petDto) {
+        PetType type = findType(petDto.getType());
+        if (type == null) {
+            return false;
+        }
+        pet.setName(petDto.getName());
+        pet.setBirthDate(petDto.getBirthDate());
+        pet.setType(type);
+        return true;
+    }
+
+    /**
+     * The stored pet type the DTO refers to, or null if there is none. A type mapped from the DTO has no version,
+     * so Hibernate would take it for a new one.
+     */
+    private PetType findType(PetTypeDto typeDto) {
+        return typeDto == null || typeDto.getId() == null ? null : this.petsService.findPetTypeById(typeDto.getId());
+    }
 }
@@ -7,17 +7,21 @@ import java.util.Objects;
 import net.dmitrykornilov.pets.mapper.PetTypeMapper;
 import net.dmitrykornilov.pets.model.PetType;
 import net.dmitrykornilov.pets.rest.dto.PetTypeDto;
+import net.dmitrykornilov.pets.rest.dto.PetTypePatchDto;
+import net.dmitrykornilov.pets.rest.dto.SyncDto;
 import net.dmitrykornilov.pets.service.PetsService;
-import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.Min;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -26,32 +30,57 @@ import org.springframework.web.util.UriComponentsBuilder;
 public class PetTypeRestController {
     private final PetsService petsService;
     private final PetTypeMapper petTypeMapper;
+    private final ConditionalWrites<PetType, PetTypeDto> writes;
 
-    public PetTypeRestController(PetsService petsService, PetTypeMapper petTypeMapper) {
+    public PetTypeRestController(PetsService petsService, PetTypeMapper petTypeMapper, Validator validator) {
         this.petsService = petsService;
         this.petTypeMapper = petTypeMapper;
+        this.writes = new ConditionalWrites<>(EntityTags::of, petTypeMapper::toPetTypeDto, PetTypeRestController::apply,
+                                              petsService::savePetType, validator);
     }
 
     @RequestMapping(method = RequestMethod.GET,
                     value = "/pettypes",
                     produces = {"application/json"})
-    public ResponseEntity<List<PetTypeDto>> listPetTypes() {
+    public ResponseEntity<List<PetTypeDto>> listPetTypes(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         List<PetType> petTypes = new ArrayList<>(this.petsService.findAllPetTypes());
         if (petTypes.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(petTypeMapper.toPetTypeDtos(petTypes), HttpStatus.OK);
+        var headers = new HttpHeaders();
+        headers.setETag(EntityTags.ofPetTypes(petTypes));
+        if (EntityTags.notModified(ifNoneMatch, headers.getETag())) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        return new ResponseEntity<>(petTypeMapper.toPetTypeDtos(petTypes), headers, HttpStatus.OK);
+    }
+
+    /**
+     * The pet types that changed after the sync token; see {@link SyncTokens}.
+     */
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/pettypes",
+                    params = "since",
+                    produces = {"application/json"})
+    public ResponseEntity<SyncDto<PetTypeDto>> syncPetTypes(@RequestParam("since") long since) {
+        return SyncTokens.sync(since, this.petsService::findPetTypesChangedSince, petTypeMapper::toPetTypeDtos);
     }
 
     @RequestMapping(method = RequestMethod.GET,
                     value = "/pettypes/{petTypeId}",
                     produces = {"application/json"})
-    public ResponseEntity<PetTypeDto> getPetType(@Min(0) @PathVariable("petTypeId") Integer petTypeId) {
+    public ResponseEntity<PetTypeDto> getPetType(@Min(0) @PathVariable("petTypeId") Integer petTypeId,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         PetType petType = this.petsService.findPetTypeById(petTypeId);
         if (petType == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(petTypeMapper.toPetTypeDto(petType), HttpStatus.OK);
+        var headers = new HttpHeaders();
+        headers.setETag(EntityTags.of(petType));
+        if (EntityTags.notModified(ifNoneMatch, headers.getETag())) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        return new ResponseEntity<>(petTypeMapper.toPetTypeDto(petType), headers, HttpStatus.OK);
     }
 
     @RequestMapping(method = RequestMethod.POST,
@@ -76,14 +105,20 @@ public class PetTypeRestController {
                     produces = {"application/json"},
                     consumes = {"application/json"})
     public ResponseEntity<PetTypeDto> updatePetType(@Min(0) @PathVariable("petTypeId") Integer petTypeId,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                     @Valid @RequestBody PetTypeDto petTypeDto) {
-        PetType currentPetType = this.petsService.findPetTypeById(petTypeId);
-        if (currentPetType == null) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        }
-        currentPetType.setName(petTypeDto.getName());
-        this.petsService.savePetType(currentPetType);
-        return new ResponseEntity<>(petTypeMapper.toPetTypeDto(currentPetType), HttpStatus.NO_CONTENT);
+        return writes.replace(this.petsService.findPetTypeById(petTypeId), ifMatch, petTypeDto);
+    }
+
+    @RequestMapping(method = RequestMethod.PATCH,
+                    value = "/pettypes/{petTypeId}",
+                    produces = {"application/json"},
+                    consumes = {"application/merge-patch+json"})
+    public ResponseEntity<PetTypeDto> patchPetType(@Min(0) @PathVariable("petTypeId") Integer petTypeId,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                   @RequestBody PetTypePatchDto patch) {
+        return writes.patch(this.petsService.findPetTypeById(petTypeId), ifMatch,
+                            petTypeDto -> patch.getName().ifPresent(petTypeDto::setName));
     }
 
     @RequestMapping(
@@ -91,13 +126,27 @@ public class PetTypeRestController {
             value = "/pettypes/{petTypeId}",
             produces = {"application/json"}
     )
-    @Transactional
-    public ResponseEntity<PetTypeDto> deletePetType(@Min(0) @PathVariable("petTypeId")Integer petTypeId) {
+    public ResponseEntity<PetTypeDto> deletePetType(@Min(0) @PathVariable("petTypeId")Integer petTypeId,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch == null) {
+            if (this.petsService.deletePetTypeById(petTypeId) == 0) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
         PetType petType = this.petsService.findPetTypeById(petTypeId);
         if (petType == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
+        if (EntityTags.preconditionFailed(ifMatch, EntityTags.of(petType))) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
         this.petsService.deletePetType(petType);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    private static boolean apply(PetType petType, PetTypeDto petTypeDto) {
+        petType.setName(petTypeDto.getName());
+        return true;
+    }
 }
@@ -0,0 +1,95 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.util.List;
+import java.util.Objects;
+
+import net.dmitrykornilov.pets.mapper.SpecialtyMapper;
+import net.dmitrykornilov.pets.model.Specialty;
+import net.dmitrykornilov.pets.rest.dto.SpecialtyDto;
+import net.dmitrykornilov.pets.service.PetsService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+@RestController
+@RequestMapping("/api")
+@Validated
+public class SpecialtyRestController {
+    private final PetsService petsService;
+
+    private final SpecialtyMapper specialtyMapper;
+
+    public SpecialtyRestController(PetsService petsService, SpecialtyMapper specialtyMapper) {
+        this.petsService = petsService;
+        this.specialtyMapper = specialtyMapper;
+    }
+
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/specialties",
+                    produces = {"application/json"})
+    public ResponseEntity<List<SpecialtyDto>> listSpecialties() {
+        List<Specialty> specialties = this.petsService.findAllSpecialties();
+        if (specialties.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(specialtyMapper.toSpecialtyDtos(specialties), HttpStatus.OK);
+    }
+
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/specialties/{specialtyId}",
+                    produces = {"application/json"})
+    public ResponseEntity<SpecialtyDto> getSpecialty(@Min(0) @PathVariable("specialtyId") Integer specialtyId) {
+        Specialty specialty = this.petsService.findSpecialtyById(specialtyId);
+        if (specialty == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(specialtyMapper.toSpecialtyDto(specialty), HttpStatus.OK);
+    }
+
+    @RequestMapping(method = RequestMethod.POST,
+                    value = "/specialties",
+                    produces = {"application/json"},
+                    consumes = {"application/json"})
+    public ResponseEntity<SpecialtyDto> addSpecialty(@Valid @RequestBody SpecialtyDto specialtyDto) {
+        if (Objects.nonNull(specialtyDto.getId()) && !specialtyDto.getId().equals(0)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Specialty specialty = specialtyMapper.toSpecialty(specialtyDto);
+        specialty.setId(null);
+        this.petsService.saveSpecialty(specialty);
+        var headers = new HttpHeaders();
+        headers.setLocation(UriComponentsBuilder.newInstance().path("/api/specialties/{id}")
+                                    .buildAndExpand(specialty.getId()).toUri());
+        return new ResponseEntity<>(specialtyMapper.toSpecialtyDto(specialty), headers, HttpStatus.CREATED);
+    }
+
+    @RequestMapping(method = RequestMethod.PUT,
+                    value = "/specialties/{specialtyId}",
+                    produces = {"application/json"},
+                    consumes = {"application/json"})
+    public ResponseEntity<SpecialtyDto> updateSpecialty(@Min(0) @PathVariable("specialtyId") Integer specialtyId,
+                                                        @Valid @RequestBody SpecialtyDto specialtyDto) {
+        Specialty currentSpecialty = this.petsService.findSpecialtyById(specialtyId);
+        if (currentSpecialty == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        currentSpecialty.setName(specialtyDto.getName());
+        try {
+            this.petsService.saveSpecialty(currentSpecialty);
+        } catch (OptimisticLockingFailureException e) {
+            // someone else updated the specialty since we read it
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+        return new ResponseEntity<>(specialtyMapper.toSpecialtyDto(currentSpecialty), HttpStatus.NO_CONTENT);
+    }
+}
@@ -0,0 +1,41 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import net.dmitrykornilov.pets.rest.dto.SyncDto;
+import net.dmitrykornilov.pets.service.ChangeSet;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Delta syncs of the list endpoints: {@code ?since=<token>} answers with what changed after the token.
+ * <p>
+ * A token is an instant in epoch milliseconds; {@code 0} asks for everything. A client keeps the token of its
+ * last answer and sends it with the next request. An expired token, one older than the tombstones kept, gets
+ * 410 Gone, after which the client syncs from {@code 0}.
+ */
+final class SyncTokens {
+
+    private SyncTokens() {
+    }
+
+    static <E, D> ResponseEntity<SyncDto<D>> sync(long token,
+                                                  Function<Instant, ChangeSet<E>> changesSince,
+                                                  Function<Collection<E>, ? extends Collection<D>> toDtos) {
+        if (token < 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        ChangeSet<E> changes;
+        try {
+            changes = changesSince.apply(Instant.ofEpochMilli(token));
+        } catch (ChangeSet.ExpiredException ex) {
+            return new ResponseEntity<>(HttpStatus.GONE);
+        }
+        var body = new SyncDto<D>(List.copyOf(toDtos.apply(changes.changed())), changes.deletedIds(),
+                                  Long.toString(changes.syncedAt().toEpochMilli()));
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+}
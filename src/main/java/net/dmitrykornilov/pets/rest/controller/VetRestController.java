@@ -0,0 +1,152 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import net.dmitrykornilov.pets.mapper.VetMapper;
+import net.dmitrykornilov.pets.model.Specialty;
+import net.dmitrykornilov.pets.model.Vet;
+import net.dmitrykornilov.pets.rest.dto.SpecialtyDto;
+import net.dmitrykornilov.pets.rest.dto.VetDto;
+import net.dmitrykornilov.pets.service.PetsService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+@RestController
+@RequestMapping("/api")
+@Validated
+public class VetRestController {
+    private final PetsService petsService;
+
+    private final VetMapper vetMapper;
+
+    public VetRestController(PetsService petsService, VetMapper vetMapper) {
+        this.petsService = petsService;
+        this.vetMapper = vetMapper;
+    }
+
+    /**
+     * The vets having all of the given specialties, or all vets when none is given. Answered from memory,
+     * so it is cheap enough to call on every keystroke of a search box.
+     */
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/vets",
+                    produces = {"application/json"})
+    public ResponseEntity<List<VetDto>> listVets(@RequestParam(value = "specialtyId", required = false) List<Integer> specialtyIds) {
+        List<Vet> vets = this.petsService.findVetsWithSpecialties(specialtyIds == null ? List.of() : specialtyIds);
+        if (vets.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(vetMapper.toVetDtos(vets), HttpStatus.OK);
+    }
+
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/vets/{vetId}",
+                    produces = {"application/json"})
+    public ResponseEntity<VetDto> getVet(@Min(0) @PathVariable("vetId") Integer vetId) {
+        Vet vet = this.petsService.findVetById(vetId);
+        if (vet == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(vetMapper.toVetDto(vet), HttpStatus.OK);
+    }
+
+    @RequestMapping(method = RequestMethod.POST,
+                    value = "/vets",
+                    produces = {"application/json"},
+                    consumes = {"application/json"})
+    public ResponseEntity<VetDto> addVet(@Valid @RequestBody VetDto vetDto) {
+        if (Objects.nonNull(vetDto.getId()) && !vetDto.getId().equals(0)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<Specialty> specialties = findSpecialties(vetDto.getSpecialties());
+        if (specialties == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Vet vet = vetMapper.toVet(vetDto);
+        vet.setId(null);
+        vet.setSpecialties(specialties);
+        this.petsService.saveVet(vet);
+        var headers = new HttpHeaders();
+        headers.setLocation(UriComponentsBuilder.newInstance().path("/api/vets/{id}").buildAndExpand(vet.getId()).toUri());
+        return new ResponseEntity<>(vetMapper.toVetDto(vet), headers, HttpStatus.CREATED);
+    }
+
+    @RequestMapping(method = RequestMethod.PUT,
+                    value = "/vets/{vetId}",
+                    produces = {"application/json"},
+                    consumes = {"application/json"})
+    public ResponseEntity<VetDto> updateVet(@Min(0) @PathVariable("vetId") Integer vetId,
+                                            @Valid @RequestBody VetDto vetDto) {
+        Vet currentVet = this.petsService.findVetById(vetId);
+        if (currentVet == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        List<Specialty> specialties = findSpecialties(vetDto.getSpecialties());
+        if (specialties == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        currentVet.setFirstName(vetDto.getFirstName());
+        currentVet.setLastName(vetDto.getLastName());
+        currentVet.setSpecialties(specialties);
+        try {
+            this.petsService.saveVet(currentVet);
+        } catch (OptimisticLockingFailureException e) {
+            // someone else updated the vet since we read it
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+        return new ResponseEntity<>(vetMapper.toVetDto(currentVet), HttpStatus.NO_CONTENT);
+    }
+
+    @RequestMapping(method = RequestMethod.DELETE,
+                    value = "/vets/{vetId}",
+                    produces = {"application/json"})
+    public ResponseEntity<VetDto> deleteVet(@Min(0) @PathVariable("vetId") Integer vetId) {
+        Vet vet = this.petsService.findVetById(vetId);
+        if (vet == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        try {
+            this.petsService.deleteVet(vet);
+        } catch (DataIntegrityViolationException e) {
+            // the vet still has appointments
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Resolves the referenced specialties by id, dropping duplicates; {@code null} if one of them does not exist.
+     */
+    private List<Specialty> findSpecialties(List<SpecialtyDto> specialtyDtos) {
+        Map<Integer, Specialty> specialties = new LinkedHashMap<>();
+        for (SpecialtyDto specialtyDto : specialtyDtos) {
+            if (specialtyDto.getId() == null) {
+                return null;
+            }
+            Specialty specialty = specialties.containsKey(specialtyDto.getId())
+                    ? specialties.get(specialtyDto.getId())
+                    : this.petsService.findSpecialtyById(specialtyDto.getId());
+            if (specialty == null) {
+                return null;
+            }
+            specialties.put(specialty.getId(), specialty);
+        }
+        return List.copyOf(specialties.values());
+    }
+}
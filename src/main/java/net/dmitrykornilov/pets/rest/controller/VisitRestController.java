@@ -0,0 +1,94 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import net.dmitrykornilov.pets.mapper.VisitMapper;
+import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.model.Visit;
+import net.dmitrykornilov.pets.rest.dto.VisitDto;
+import net.dmitrykornilov.pets.service.PetsService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+@RestController
+@RequestMapping("/api")
+@Validated
+public class VisitRestController {
+    static final int DEFAULT_PAGE_SIZE = 20;
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final PetsService petsService;
+
+    private final VisitMapper visitMapper;
+
+    public VisitRestController(PetsService petsService, VisitMapper visitMapper) {
+        this.petsService = petsService;
+        this.visitMapper = visitMapper;
+    }
+
+    /**
+     * A page of the pet's visits, newest first. A full page links to the next one, which continues after the
+     * date and id of the last visit returned.
+     */
+    @RequestMapping(method = RequestMethod.GET,
+                    value = "/pets/{petId}/visits",
+                    produces = {"application/json"})
+    public ResponseEntity<List<VisitDto>> listVisits(@Min(0) @PathVariable("petId") Integer petId,
+                                                     @RequestParam(value = "from", required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                     @RequestParam(value = "to", required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                     @RequestParam(value = "beforeDate", required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate beforeDate,
+                                                     @RequestParam(value = "beforeId", required = false) Integer beforeId,
+                                                     @RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<VisitDto> page = visitMapper.toVisitDtos(
+                this.petsService.findVisitsByPetId(petId, from, to, beforeDate, beforeId, limit));
+        if (page.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        var headers = new HttpHeaders();
+        if (page.size() == limit) {
+            VisitDto last = page.get(page.size() - 1);
+            var next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("limit", limit)
+                    .replaceQueryParam("beforeDate", last.getDate())
+                    .replaceQueryParam("beforeId", last.getId())
+                    .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(page, headers, HttpStatus.OK);
+    }
+
+    @RequestMapping(method = RequestMethod.POST,
+                    value = "/pets/{petId}/visits",
+                    produces = {"application/json"},
+                    consumes = {"application/json"})
+    public ResponseEntity<VisitDto> addVisit(@Min(0) @PathVariable("petId") Integer petId,
+                                             @Valid @RequestBody VisitDto visitDto) {
+        Pet pet = this.petsService.findPetById(petId);
+        if (pet == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        visitDto.setId(null);
+        Visit visit = visitMapper.toVisit(visitDto);
+        visit.setPet(pet);
+        this.petsService.saveVisit(visit);
+        return new ResponseEntity<>(visitMapper.toVisitDto(visit), HttpStatus.CREATED);
+    }
+}
@@ -0,0 +1,112 @@
+package net.dmitrykornilov.pets.rest.dto;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class AppointmentDto {
+    private Integer id;
+    private Integer vetId;
+    private Integer petId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private String description;
+
+    public AppointmentDto() {
+    }
+
+    public AppointmentDto(Integer id, Integer vetId, Integer petId, LocalDateTime start, LocalDateTime end,
+                          String description) {
+        this.id = id;
+        this.vetId = vetId;
+        this.petId = petId;
+        this.start = start;
+        this.end = end;
+        this.description = description;
+    }
+
+    @Min(0)
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    @NotNull
+    @Min(0)
+    public Integer getVetId() {
+        return vetId;
+    }
+
+    public void setVetId(Integer vetId) {
+        this.vetId = vetId;
+    }
+
+    @NotNull
+    @Min(0)
+    public Integer getPetId() {
+        return petId;
+    }
+
+    public void setPetId(Integer petId) {
+        this.petId = petId;
+    }
+
+    @NotNull
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public void setStart(LocalDateTime start) {
+        this.start = start;
+    }
+
+    @NotNull
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    public void setEnd(LocalDateTime end) {
+        this.end = end;
+    }
+
+    @Size(max = 255)
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        AppointmentDto that = (AppointmentDto) o;
+        return Objects.equals(id, that.id)
+                && Objects.equals(vetId, that.vetId)
+                && Objects.equals(petId, that.petId)
+                && Objects.equals(start, that.start)
+                && Objects.equals(end, that.end)
+                && Objects.equals(description, that.description);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(id);
+        result = 31 * result + Objects.hashCode(vetId);
+        result = 31 * result + Objects.hashCode(petId);
+        result = 31 * result + Objects.hashCode(start);
+        result = 31 * result + Objects.hashCode(end);
+        result = 31 * result + Objects.hashCode(description);
+        return result;
+    }
+}
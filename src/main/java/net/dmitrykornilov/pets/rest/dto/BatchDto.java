@@ -0,0 +1,54 @@
+package net.dmitrykornilov.pets.rest.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The answer to a lookup of many ids at once: the items found, in the order their ids were asked for, and the
+ * ids nothing was found for.
+ */
+public class BatchDto<T> {
+    private List<T> items;
+    private List<Integer> missingIds;
+
+    public BatchDto() {
+    }
+
+    public BatchDto(List<T> items, List<Integer> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public List<Integer> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<Integer> missingIds) {
+        this.missingIds = missingIds;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        BatchDto<?> that = (BatchDto<?>) o;
+        return Objects.equals(items, that.items) && Objects.equals(missingIds, that.missingIds);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(items);
+        result = 31 * result + Objects.hashCode(missingIds);
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+package net.dmitrykornilov.pets.rest.dto;
+
+import java.util.Objects;
+
+/**
+ * One entry of the change feed: which owner, pet or pet type was created, updated or deleted.
+ */
+public class ChangeDto {
+    private long sequence;
+    private String entity;
+    private int id;
+    private String action;
+
+    public ChangeDto() {
+    }
+
+    public ChangeDto(long sequence, String entity, int id, String action) {
+        this.sequence = sequence;
+        this.entity = entity;
+        this.id = id;
+        this.action = action;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ChangeDto that = (ChangeDto) o;
+        return sequence == that.sequence && id == that.id && Objects.equals(entity, that.entity)
+            && Objects.equals(action, that.action);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(sequence);
+        result = 31 * result + Objects.hashCode(entity);
+        result = 31 * result + id;
+        result = 31 * result + Objects.hashCode(action);
+        return result;
+    }
+}
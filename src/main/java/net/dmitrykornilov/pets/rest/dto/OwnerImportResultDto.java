@@ -0,0 +1,74 @@
+package net.dmitrykornilov.pets.rest.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Outcome of one item of a bulk owner import: the id of the created owner, or the reasons it was rejected.
+ */
+public class OwnerImportResultDto {
+    private int index;
+    private Integer id;
+    private List<String> errors;
+
+    public OwnerImportResultDto() {
+    }
+
+    public OwnerImportResultDto(int index, Integer id, List<String> errors) {
+        this.index = index;
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public static OwnerImportResultDto created(int index, Integer id) {
+        return new OwnerImportResultDto(index, id, List.of());
+    }
+
+    public static OwnerImportResultDto rejected(int index, List<String> errors) {
+        return new OwnerImportResultDto(index, null, errors);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        OwnerImportResultDto that = (OwnerImportResultDto) o;
+        return index == that.index
+                && Objects.equals(id, that.id)
+                && Objects.equals(errors, that.errors);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = index;
+        result = 31 * result + Objects.hashCode(id);
+        result = 31 * result + Objects.hashCode(errors);
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package net.dmitrykornilov.pets.rest.dto;
+
+import java.util.Objects;
+
+import org.openapitools.jackson.nullable.JsonNullable;
+
+/**
+ * A JSON merge patch of an owner: a field that is absent stays as it is, a field that is null is cleared,
+ * which fails validation for a required one.
+ * Pets are patched through their own resource.
+ */
+public class OwnerPatchDto {
+    private JsonNullable<String> firstName = JsonNullable.undefined();
+    private JsonNullable<String> lastName = JsonNullable.undefined();
+    private JsonNullable<String> address = JsonNullable.undefined();
+    private JsonNullable<String> city = JsonNullable.undefined();
+    private JsonNullable<String> telephone = JsonNullable.undefined();
+
+    public JsonNullable<String> getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(JsonNullable<String> firstName) {
+        this.firstName = firstName;
+    }
+
+    public JsonNullable<String> getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(JsonNullable<String> lastName) {
+        this.lastName = lastName;
+    }
+
+    public JsonNullable<String> getAddress() {
+        return address;
+    }
+
+    public void setAddress(JsonNullable<String> address) {
+        this.address = address;
+    }
+
+    public JsonNullable<String> getCity() {
+        return city;
+    }
+
+    public void setCity(JsonNullable<String> city) {
+        this.city = city;
+    }
+
+    public JsonNullable<String> getTelephone() {
+        return telephone;
+    }
+
+    public void setTelephone(JsonNullable<String> telephone) {
+        this.telephone = telephone;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        OwnerPatchDto that = (OwnerPatchDto) o;
+        return Objects.equals(firstName, that.firstName)
+                && Objects.equals(lastName, that.lastName)
+                && Objects.equals(address, that.address)
+                && Objects.equals(city, that.city)
+                && Objects.equals(telephone, that.telephone);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(firstName);
+        result = 31 * result + Objects.hashCode(lastName);
+        result = 31 * result + Objects.hashCode(address);
+        result = 31 * result + Objects.hashCode(city);
+        result = 31 * result + Objects.hashCode(telephone);
+        return result;
+    }
+}
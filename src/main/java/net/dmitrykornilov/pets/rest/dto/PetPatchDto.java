@@ -0,0 +1,61 @@
+package net.dmitrykornilov.pets.rest.dto;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+import org.openapitools.jackson.nullable.JsonNullable;
+
+/**
+ * A JSON merge patch of a pet: a field that is absent stays as it is, a field that is null is cleared,
+ * which fails validation for a required one.
+ * The type is replaced as a whole by the pet type with the given id.
+ */
+public class PetPatchDto {
+    private JsonNullable<String> name = JsonNullable.undefined();
+    private JsonNullable<LocalDate> birthDate = JsonNullable.undefined();
+    private JsonNullable<PetTypeDto> type = JsonNullable.undefined();
+
+    public JsonNullable<String> getName() {
+        return name;
+    }
+
+    public void setName(JsonNullable<String> name) {
+        this.name = name;
+    }
+
+    public JsonNullable<LocalDate> getBirthDate() {
+        return birthDate;
+    }
+
+    public void setBirthDate(JsonNullable<LocalDate> birthDate) {
+        this.birthDate = birthDate;
+    }
+
+    public JsonNullable<PetTypeDto> getType() {
+        return type;
+    }
+
+    public void setType(JsonNullable<PetTypeDto> type) {
+        this.type = type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        PetPatchDto that = (PetPatchDto) o;
+        return Objects.equals(name, that.name)
+                && Objects.equals(birthDate, that.birthDate)
+                && Objects.equals(type, that.type);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(name);
+        result = 31 * result + Objects.hashCode(birthDate);
+        result = 31 * result + Objects.hashCode(type);
+        return result;
+    }
+}
@@ -0,0 +1,37 @@
+package net.dmitrykornilov.pets.rest.dto;
+
+import java.util.Objects;
+
+import org.openapitools.jackson.nullable.JsonNullable;
+
+/**
+ * A JSON merge patch of a pet type: a field that is absent stays as it is, a field that is null is cleared,
+ * which fails validation for a required one.
+ */
+public class PetTypePatchDto {
+    private JsonNullable<String> name = JsonNullable.undefined();
+
+    public JsonNullable<String> getName() {
+        return name;
+    }
+
+    public void setName(JsonNullable<String> name) {
+        this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        PetTypePatchDto that = (PetTypePatchDto) o;
+        return Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(name);
+        return result;
+    }
+}
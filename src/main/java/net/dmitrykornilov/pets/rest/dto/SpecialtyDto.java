@@ -0,0 +1,57 @@
+package net.dmitrykornilov.pets.rest.dto;
+
+import java.util.Objects;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class SpecialtyDto {
+    private Integer id;
+    private String name;
+
+    public SpecialtyDto() {
+    }
+
+    public SpecialtyDto(Integer id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    @Min(0)
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    @NotNull
+    @Size(min = 1, max = 80)
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        SpecialtyDto that = (SpecialtyDto) o;
+        return Objects.equals(id, that.id) && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(id);
+        result = 31 * result + Objects.hashCode(name);
+        return result;
+    }
+}
+
@@ -0,0 +1,66 @@
+package net.dmitrykornilov.pets.rest.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The answer to a delta sync: the items created or updated since the client's sync token, the ids of those
+ * deleted since, and the token to send next time.
+ */
+public class SyncDto<T> {
+    private List<T> items;
+    private List<Integer> deletedIds;
+    private String syncToken;
+
+    public SyncDto() {
+    }
+
+    public SyncDto(List<T> items, List<Integer> deletedIds, String syncToken) {
+        this.items = items;
+        this.deletedIds = deletedIds;
+        this.syncToken = syncToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public List<Integer> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public void setDeletedIds(List<Integer> deletedIds) {
+        this.deletedIds = deletedIds;
+    }
+
+    public String getSyncToken() {
+        return syncToken;
+    }
+
+    public void setSyncToken(String syncToken) {
+        this.syncToken = syncToken;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        SyncDto<?> that = (SyncDto<?>) o;
+        return Objects.equals(items, that.items) && Objects.equals(deletedIds, that.deletedIds)
+            && Objects.equals(syncToken, that.syncToken);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(items);
+        result = 31 * result + Objects.hashCode(deletedIds);
+        result = 31 * result + Objects.hashCode(syncToken);
+        return result;
+    }
+}
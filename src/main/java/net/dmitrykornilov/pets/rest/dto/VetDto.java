@@ -0,0 +1,92 @@
+package net.dmitrykornilov.pets.rest.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+public class VetDto {
+    private Integer id;
+    private String firstName;
+    private String lastName;
+
+    @Valid
+    private List<SpecialtyDto> specialties = new ArrayList<>();
+
+    public VetDto() {
+    }
+
+    public VetDto(Integer id, String firstName, String lastName, List<SpecialtyDto> specialties) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.specialties = specialties;
+    }
+
+    @Min(0)
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    @NotNull
+    @Pattern(regexp = "^[a-zA-Z]*$")
+    @Size(min = 1, max = 30)
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    @NotNull
+    @Pattern(regexp = "^[a-zA-Z]*$")
+    @Size(min = 1, max = 30)
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    @Valid
+    public List<SpecialtyDto> getSpecialties() {
+        return specialties;
+    }
+
+    public void setSpecialties(List<SpecialtyDto> specialties) {
+        this.specialties = specialties;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        VetDto vetDto = (VetDto) o;
+        return Objects.equals(id, vetDto.id)
+                && Objects.equals(firstName, vetDto.firstName)
+                && Objects.equals(lastName, vetDto.lastName)
+                && Objects.equals(specialties, vetDto.specialties);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(id);
+        result = 31 * result + Objects.hashCode(firstName);
+        result = 31 * result + Objects.hashCode(lastName);
+        result = 31 * result + Objects.hashCode(specialties);
+        return result;
+    }
+}
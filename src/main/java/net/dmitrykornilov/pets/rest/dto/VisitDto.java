@@ -0,0 +1,84 @@
+package net.dmitrykornilov.pets.rest.dto;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class VisitDto {
+    private Integer id;
+    private Integer petId;
+    private LocalDate date;
+    private String description;
+
+    public VisitDto() {
+    }
+
+    public VisitDto(Integer id, Integer petId, LocalDate date, String description) {
+        this.id = id;
+        this.petId = petId;
+        this.date = date;
+        this.description = description;
+    }
+
+    @Min(0)
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    @Min(0)
+    public Integer getPetId() {
+        return petId;
+    }
+
+    public void setPetId(Integer petId) {
+        this.petId = petId;
+    }
+
+    @NotNull
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    @NotNull
+    @Size(min = 1, max = 255)
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        VisitDto visitDto = (VisitDto) o;
+        return Objects.equals(id, visitDto.id)
+                && Objects.equals(petId, visitDto.petId)
+                && Objects.equals(date, visitDto.date)
+                && Objects.equals(description, visitDto.description);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(id);
+        result = 31 * result + Objects.hashCode(petId);
+        result = 31 * result + Objects.hashCode(date);
+        result = 31 * result + Objects.hashCode(description);
+        return result;
+    }
+}
@@ -0,0 +1,225 @@
+package net.dmitrykornilov.pets.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiPredicate;
+
+import net.dmitrykornilov.pets.datasource.PrimaryReads;
+import net.dmitrykornilov.pets.model.Appointment;
+import net.dmitrykornilov.pets.repository.AppointmentRepository;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory calendars of the upcoming appointments of every vet and every pet, used to reject overlapping
+ * bookings and to find free slots without querying the database.
+ * <p>
+ * The appointments in one calendar never overlap, so a skip list keyed by start time is enough for an
+ * O(log n) conflict check: only the closest appointment starting at or before the new one and the closest one
+ * starting after it can overlap it. Each calendar has its own lock, so bookings for different vets never
+ * contend. A booking locks the vet's calendar and then the pet's, always in that order, and keeps both locked
+ * until its insert has committed, so two bookings can never both pass the check for the same time.
+ * Reads of a calendar do not lock.
+ * <p>
+ * The calendars are rebuilt from the appointments that have not ended yet when the context starts, and the
+ * appointments that have ended are dropped from them periodically. Both take a lock that bookings share, so no
+ * booking is lost to a rebuild or half applied while a calendar is dropped.
+ */
+@Component
+class AppointmentSchedule {
+
+    private record Slot(int appointmentId, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private static final class Calendar {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final ConcurrentNavigableMap<LocalDateTime, Slot> slots = new ConcurrentSkipListMap<>();
+
+        boolean isFree(LocalDateTime start, LocalDateTime end) {
+            Map.Entry<LocalDateTime, Slot> before = slots.floorEntry(start);
+            if (before != null && before.getValue().end().isAfter(start)) {
+                return false;
+            }
+            Map.Entry<LocalDateTime, Slot> after = slots.higherEntry(start);
+            return after == null || !after.getKey().isBefore(end);
+        }
+
+        LocalDateTime nextFree(LocalDateTime from, Duration duration) {
+            LocalDateTime candidate = from;
+            Map.Entry<LocalDateTime, Slot> before = slots.floorEntry(from);
+            if (before != null && before.getValue().end().isAfter(candidate)) {
+                candidate = before.getValue().end();
+            }
+            for (Slot slot : slots.tailMap(candidate).values()) {
+                if (!slot.start().isBefore(candidate.plus(duration))) {
+                    break;
+                }
+                candidate = slot.end();
+            }
+            return candidate;
+        }
+
+        /**
+         * Drops the slots that ended by {@code now}.
+         *
+         * @return whether the calendar is empty now
+         */
+        boolean prune(LocalDateTime now) {
+            // the slots never overlap, so they end in the order they start
+            for (Slot slot : slots.values()) {
+                if (slot.end().isAfter(now)) {
+                    break;
+                }
+                slots.remove(slot.start(), slot);
+            }
+            return slots.isEmpty();
+        }
+
+        void add(Slot slot) {
+            slots.put(slot.start(), slot);
+        }
+
+        void remove(Slot slot) {
+            slots.remove(slot.start(), slot);
+        }
+    }
+
+    private record Calendars(Map<Integer, Calendar> vets, Map<Integer, Calendar> pets) {
+        Calendars() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    private volatile Calendars calendars = new Calendars();
+
+    // shared by bookings and cancellations, exclusive for rebuilding and pruning the calendars
+    private final ReadWriteLock calendarsLock = new ReentrantReadWriteLock();
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final TransactionTemplate writeTransaction;
+
+    AppointmentSchedule(AppointmentRepository appointmentRepository, PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        // the calendars must only change once the database has, so bookings commit on their own
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Inserts the appointment unless it overlaps another appointment of its vet or its pet.
+     *
+     * @return whether the appointment was booked
+     */
+    boolean book(Appointment appointment) {
+        return withCalendars(appointment, (vet, pet) -> {
+            if (!vet.isFree(appointment.getStart(), appointment.getEnd())
+                || !pet.isFree(appointment.getStart(), appointment.getEnd())) {
+                return false;
+            }
+            writeTransaction.executeWithoutResult(status -> appointmentRepository.save(appointment));
+            Slot slot = slot(appointment);
+            vet.add(slot);
+            pet.add(slot);
+            return true;
+        });
+    }
+
+    void cancel(Appointment appointment) {
+        withCalendars(appointment, (vet, pet) -> {
+            writeTransaction.executeWithoutResult(status -> appointmentRepository.delete(appointment));
+            Slot slot = slot(appointment);
+            vet.remove(slot);
+            pet.remove(slot);
+            return true;
+        });
+    }
+
+    /**
+     * The earliest start at or after {@code from} at which the vet is free for {@code duration}.
+     */
+    LocalDateTime findNextFreeSlot(int vetId, LocalDateTime from, Duration duration) {
+        Calendar vet = calendars.vets().get(vetId);
+        return vet == null ? from : vet.nextFree(from, duration);
+    }
+
+    // the lock is held while reading, so that no booking commits after the read and is missing from the result
+    @EventListener(ContextRefreshedEvent.class)
+    void load() {
+        calendarsLock.writeLock().lock();
+        try {
+            var next = new Calendars();
+            // from the primary, since the calendars decide which bookings are accepted
+            List<Appointment> appointments =
+                PrimaryReads.call(() -> appointmentRepository.findEndingAfter(LocalDateTime.now()));
+            for (Appointment appointment : appointments) {
+                Slot slot = slot(appointment);
+                calendar(next.vets(), appointment.getVet().getId()).add(slot);
+                calendar(next.pets(), appointment.getPet().getId()).add(slot);
+            }
+            this.calendars = next;
+        } finally {
+            calendarsLock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pets.appointments.prune-interval:PT1H}")
+    void prune() {
+        LocalDateTime now = LocalDateTime.now();
+        calendarsLock.writeLock().lock();
+        try {
+            Calendars current = this.calendars;
+            current.vets().values().removeIf(calendar -> calendar.prune(now));
+            current.pets().values().removeIf(calendar -> calendar.prune(now));
+        } finally {
+            calendarsLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the action with the calendars of the appointment's vet and pet locked, always in that order.
+     */
+    private boolean withCalendars(Appointment appointment, BiPredicate<Calendar, Calendar> action) {
+        calendarsLock.readLock().lock();
+        try {
+            Calendars current = this.calendars;
+            Calendar vet = calendar(current.vets(), appointment.getVet().getId());
+            Calendar pet = calendar(current.pets(), appointment.getPet().getId());
+            vet.lock.lock();
+            try {
+                pet.lock.lock();
+                try {
+                    return action.test(vet, pet);
+                } finally {
+                    pet.lock.unlock();
+                }
+            } finally {
+                vet.lock.unlock();
+            }
+        } finally {
+            calendarsLock.readLock().unlock();
+        }
+    }
+
+    private static Calendar calendar(Map<Integer, Calendar> calendars, int id) {
+        return calendars.computeIfAbsent(id, key -> new Calendar());
+    }
+
+    private static Slot slot(Appointment appointment) {
+        return new Slot(appointment.getId(), appointment.getStart(), appointment.getEnd());
+    }
+}
@@ -0,0 +1,98 @@
+package net.dmitrykornilov.pets.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * The latest writes to owners, pets and pet types, for clients that follow changes instead of polling.
+ * <p>
+ * Every write the service commits gets the next sequence number and goes into a ring buffer holding the last
+ * {@code capacity} changes; older ones are overwritten. Readers ask for the changes after the last sequence they
+ * have seen and wait for new ones without holding the lock, so a reader never holds up a writer; a reader that
+ * falls so far behind that its next change has been overwritten gets a {@link GapException} instead.
+ * <p>
+ * Sequence numbers start over when the application restarts, so a sequence from before a restart is a gap too.
+ */
+@Component
+public class ChangeFeed {
+
+    public enum Entity {
+        OWNER, PET, PET_TYPE
+    }
+
+    public enum Action {
+        CREATED, UPDATED, DELETED
+    }
+
+    public record Change(long sequence, Entity entity, int id, Action action) {
+    }
+
+    /** Published by the service for every write; goes into the feed once the write commits. */
+    record Changed(Entity entity, int id, Action action) {
+    }
+
+    /**
+     * The changes after a sequence are no longer, or were never, in the feed; the reader has to reload whatever
+     * it derived from them and follow the feed from {@link #lastSequence()} on.
+     */
+    public static class GapException extends RuntimeException {
+        public GapException(long after, long last) {
+            super("Changes after " + after + " are not available, the feed holds up to " + last);
+        }
+    }
+
+    private final Change[] ring;
+
+    // the sequence of the newest change, 0 before the first
+    private long last;
+
+    public ChangeFeed(@Value("${pets.changes.capacity:1024}") int capacity) {
+        this.ring = new Change[capacity];
+    }
+
+    public synchronized long lastSequence() {
+        return last;
+    }
+
+    /**
+     * Up to {@code max} changes after the given sequence, oldest first, waiting up to {@code timeout} for one if
+     * there is none yet.
+     *
+     * @return the changes, empty if none came within the timeout
+     * @throws GapException if a change right after {@code after} has been overwritten or is not known
+     */
+    public synchronized List<Change> await(long after, int max, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (last <= after) {
+            if (after > last) {
+                throw new GapException(after, last);
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return List.of();
+            }
+            wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+        }
+        if (after < last - ring.length) {
+            throw new GapException(after, last);
+        }
+        List<Change> changes = new ArrayList<>((int) Math.min(max, last - after));
+        for (long sequence = after + 1; sequence <= last && changes.size() < max; sequence++) {
+            changes.add(ring[(int) (sequence % ring.length)]);
+        }
+        return changes;
+    }
+
+    @TransactionalEventListener
+    synchronized void onChanged(Changed changed) {
+        last++;
+        ring[(int) (last % ring.length)] = new Change(last, changed.entity(), changed.id(), changed.action());
+        notifyAll();
+    }
+}
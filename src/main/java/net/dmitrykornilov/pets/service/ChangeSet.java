@@ -0,0 +1,20 @@
+package net.dmitrykornilov.pets.service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What a client that last synced at some instant has to apply to catch up: the rows created or updated since,
+ * and the ids of the rows deleted since. {@code syncedAt} is where its next sync starts.
+ */
+public record ChangeSet<T>(List<T> changed, List<Integer> deletedIds, Instant syncedAt) {
+
+    /**
+     * The deletes since the requested instant may have been forgotten; the client has to sync from scratch.
+     */
+    public static class ExpiredException extends RuntimeException {
+        public ExpiredException(Instant since, Instant retainedSince) {
+            super("Deletes before " + retainedSince + " are no longer kept, cannot sync since " + since);
+        }
+    }
+}
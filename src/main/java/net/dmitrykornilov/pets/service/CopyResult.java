@@ -0,0 +1,17 @@
+package net.dmitrykornilov.pets.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Every caller of the annotated method gets its own copy of the entities it returns, see
+ * {@link CopyResultAspect}. For reads whose result is cached or shared with concurrent callers.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@interface CopyResult {
+}
@@ -0,0 +1,27 @@
+package net.dmitrykornilov.pets.service;
+
+import net.dmitrykornilov.pets.model.EntityCopies;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands every caller of a {@link CopyResult} method a copy of the result.
+ * <p>
+ * The aspect runs outside the caching interceptor, so the cached entities are never handed out and stay as they
+ * were loaded. A caller may change its copy, e.g. to save it, without anyone else seeing the change before it has
+ * committed and evicted the cache entry.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 3)
+class CopyResultAspect {
+
+    @Around("@annotation(net.dmitrykornilov.pets.service.CopyResult)")
+    Object copy(ProceedingJoinPoint invocation) throws Throwable {
+        return EntityCopies.copy(invocation.proceed());
+    }
+}
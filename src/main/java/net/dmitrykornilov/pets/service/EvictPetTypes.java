@@ -0,0 +1,22 @@
+package net.dmitrykornilov.pets.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import net.dmitrykornilov.pets.cache.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+
+/**
+ * Evicts every cached pet type and pet type list once the annotated write has committed, and the cached owners
+ * too, since they embed their pets' types.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@CacheEvict(cacheNames = {CacheConfig.PET_TYPES, CacheConfig.PET_TYPES_BY_NAME, CacheConfig.PET_TYPE_LISTS,
+    CacheConfig.OWNERS}, allEntries = true)
+@interface EvictPetTypes {
+}
@@ -0,0 +1,331 @@
+package net.dmitrykornilov.pets.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import net.dmitrykornilov.pets.datasource.PrimaryReads;
+import net.dmitrykornilov.pets.model.Owner;
+import net.dmitrykornilov.pets.repository.OwnerRepository;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Case- and accent-insensitive prefix search over the owners' last names, first names, cities and telephone
+ * numbers, so that a search returns a ranked page of owner ids without scanning the owners table.
+ * <p>
+ * Every word of those fields is an entry in a skip list sorted by normalized term, so the entries matching a
+ * prefix are a contiguous run found in O(log n). Each word of a query must prefix-match some field of an owner:
+ * the shortest run gives the candidates, and each candidate's own entries are checked against the other words.
+ * Owners are ranked by the fields their words matched, last name first, with exact matches ahead of prefix
+ * matches; ties go to the lower id. Only the best {@link #MAX_MATCHES} owners can be paged through.
+ * <p>
+ * A search reads and scores every candidate, however many, so a one-letter query costs a scan of the owners
+ * with a word starting with that letter. It keeps no more than the requested page and the ones before it, at
+ * most {@link #MAX_MATCHES}, in a bounded heap instead of sorting all the matches.
+ * <p>
+ * The index is loaded when the context starts and follows owner writes once they commit, skipping a write older
+ * than the version it holds. Readers never lock. A reload reads the owners without holding the lock that writes
+ * take, and replays the writes applied in the meantime onto what it read before publishing it.
+ */
+@Component
+public class OwnerSearchIndex {
+    static final int MAX_MATCHES = 1000;
+
+    /**
+     * Published by the service when an owner was created or updated; read once the write has committed, when the
+     * owner carries the version it was written with.
+     */
+    record OwnerSaved(Owner owner) {
+    }
+
+    /** Published by the service when an owner was deleted. */
+    record OwnerDeleted(int ownerId) {
+    }
+
+    // the weight of a prefix match in each field; an exact match counts twice
+    private enum Field {
+        LAST_NAME(8), FIRST_NAME(4), TELEPHONE(2), CITY(1);
+
+        private final int weight;
+
+        Field(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private record Entry(String term, Field field, int ownerId) {
+    }
+
+    private record Fields(int ownerId, int version, String lastName, String firstName, String city,
+                          String telephone) {
+        Fields(Owner owner) {
+            this(owner.getId(), owner.getVersion(), owner.getLastName(), owner.getFirstName(), owner.getCity(),
+                 owner.getTelephone());
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::term)
+        .thenComparing(Entry::field)
+        .thenComparingInt(Entry::ownerId);
+
+    private record Match(int ownerId, int score) {
+    }
+
+    private static final Comparator<Match> BETTER = Comparator.comparingInt(Match::score).reversed()
+        .thenComparingInt(Match::ownerId);
+
+    private record Index(NavigableSet<Entry> entries, Map<Integer, List<Entry>> entriesByOwner,
+                         Map<Integer, Integer> versions) {
+        Index() {
+            this(new ConcurrentSkipListSet<>(ORDER), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    private volatile Index index = new Index();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // one reload at a time, so that only writers and reloaders contend for the lock above
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    // the writes applied while a reload reads, guarded by the lock; null when no reload runs
+    private List<Consumer<Index>> pending;
+
+    private final OwnerRepository ownerRepository;
+
+    OwnerSearchIndex(OwnerRepository ownerRepository) {
+        this.ownerRepository = ownerRepository;
+    }
+
+    /**
+     * The ids of the owners matching the query, best match first, skipping the first {@code offset}.
+     */
+    List<Integer> search(String query, int offset, int limit) {
+        List<String> words = words(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        Index current = this.index;
+        List<NavigableSet<Entry>> runs = new ArrayList<>(words.size());
+        for (String word : words) {
+            runs.add(run(current, word));
+        }
+        int wanted = (int) Math.min((long) offset + limit, MAX_MATCHES);
+        if (wanted <= offset) {
+            return List.of();
+        }
+        // the worst of the best matches so far on top, to be dropped by a better one
+        PriorityQueue<Match> best = new PriorityQueue<>(wanted + 1, BETTER.reversed());
+        Set<Integer> scored = new HashSet<>();
+        for (Entry candidate : shortest(runs)) {
+            if (scored.add(candidate.ownerId())) {
+                int score = score(current.entriesByOwner().get(candidate.ownerId()), words);
+                if (score > 0) {
+                    best.add(new Match(candidate.ownerId(), score));
+                    if (best.size() > wanted) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(BETTER);
+        return matches.subList(Math.min(offset, matches.size()), matches.size()).stream()
+            .map(Match::ownerId)
+            .toList();
+    }
+
+    /**
+     * Rebuilds the index from the database, e.g. after owners were written without going through the service.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void reload() {
+        reloadLock.lock();
+        try {
+            lock.lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+            Index next = null;
+            try {
+                next = read();
+            } finally {
+                publish(next);
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private Index read() {
+        var next = new Index();
+        // from the primary, since a lagging replica would keep old owners in the index until they are written
+        for (OwnerRepository.SearchFields owner : PrimaryReads.call(ownerRepository::findAllSearchFields)) {
+            index(next, new Fields(owner.getId(), owner.getVersion(), owner.getLastName(), owner.getFirstName(),
+                                   owner.getCity(), owner.getTelephone()));
+        }
+        return next;
+    }
+
+    @TransactionalEventListener
+    void onOwnerSaved(OwnerSaved event) {
+        var owner = new Fields(event.owner());
+        apply(index -> index(index, owner));
+    }
+
+    @TransactionalEventListener
+    void onOwnerDeleted(OwnerDeleted event) {
+        apply(index -> unindex(index, event.ownerId()));
+    }
+
+    private void apply(Consumer<Index> write) {
+        lock.lock();
+        try {
+            write.accept(this.index);
+            if (pending != null) {
+                pending.add(write);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // publishes a reload unless it failed; the writes it missed may also be in what it read, and replaying them is
+    // harmless since each one sets an owner's entries from scratch
+    private void publish(Index next) {
+        lock.lock();
+        try {
+            if (next != null) {
+                pending.forEach(write -> write.accept(next));
+                this.index = next;
+            }
+            pending = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // readers may briefly see an owner under both its old and new terms, or under neither
+    private static void index(Index index, Fields owner) {
+        Integer indexed = index.versions().get(owner.ownerId());
+        // the after-commit listeners of concurrent writes may run in either order
+        if (indexed != null && indexed > owner.version()) {
+            return;
+        }
+        unindex(index, owner.ownerId());
+        List<Entry> added = new ArrayList<>(4);
+        add(added, owner.lastName(), Field.LAST_NAME, owner.ownerId());
+        add(added, owner.firstName(), Field.FIRST_NAME, owner.ownerId());
+        add(added, owner.city(), Field.CITY, owner.ownerId());
+        add(added, digits(owner.telephone()), Field.TELEPHONE, owner.ownerId());
+        index.entries().addAll(added);
+        index.entriesByOwner().put(owner.ownerId(), added);
+        index.versions().put(owner.ownerId(), owner.version());
+    }
+
+    private static void unindex(Index index, int ownerId) {
+        index.versions().remove(ownerId);
+        Collection<Entry> removed = index.entriesByOwner().remove(ownerId);
+        if (removed != null) {
+            index.entries().removeAll(removed);
+        }
+    }
+
+    // every word of a field is a term of its own, so "berg" finds "van den Berg"
+    private static void add(List<Entry> entries, String text, Field field, int ownerId) {
+        for (String word : words(text)) {
+            entries.add(new Entry(word, field, ownerId));
+        }
+    }
+
+    /**
+     * The entries whose term starts with the word.
+     */
+    private static NavigableSet<Entry> run(Index index, String word) {
+        return index.entries().subSet(new Entry(word, Field.LAST_NAME, Integer.MIN_VALUE), true,
+                                      new Entry(word + Character.MAX_VALUE, Field.LAST_NAME, Integer.MIN_VALUE), false);
+    }
+
+    /**
+     * The shortest of the runs; they are read in step until one ends, so no more than the shortest one's length
+     * is read from each.
+     */
+    private static NavigableSet<Entry> shortest(List<NavigableSet<Entry>> runs) {
+        List<Iterator<Entry>> iterators = runs.stream().map(NavigableSet::iterator).toList();
+        while (true) {
+            for (int i = 0; i < iterators.size(); i++) {
+                if (!iterators.get(i).hasNext()) {
+                    return runs.get(i);
+                }
+                iterators.get(i).next();
+            }
+        }
+    }
+
+    /**
+     * The sum over the words of the best score the owner gets for each in any of its fields, or 0 if a word
+     * matches none of them.
+     */
+    private static int score(List<Entry> entries, List<String> words) {
+        if (entries == null) {
+            return 0;
+        }
+        int total = 0;
+        for (String word : words) {
+            int best = 0;
+            for (Entry entry : entries) {
+                if (entry.term().startsWith(word)) {
+                    best = Math.max(best, entry.field().weight * (entry.term().length() == word.length() ? 2 : 1));
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static List<String> words(String query) {
+        List<String> words = new ArrayList<>();
+        for (String word : normalize(query).split("\\s+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // lower case without diacritics, so that "Müller" is found by "muller"
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "")
+            .toLowerCase(Locale.ROOT)
+            .trim();
+    }
+
+    private static String digits(String telephone) {
+        return telephone == null ? "" : telephone.replaceAll("[^0-9]", "");
+    }
+}
@@ -1,28 +1,132 @@
 package net.dmitrykornilov.pets.service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
+import net.dmitrykornilov.pets.model.Appointment;
 import net.dmitrykornilov.pets.model.Owner;
 import net.dmitrykornilov.pets.model.Pet;
 import net.dmitrykornilov.pets.model.PetType;
+import net.dmitrykornilov.pets.model.Specialty;
+import net.dmitrykornilov.pets.model.Vet;
+import net.dmitrykornilov.pets.model.Visit;
 import org.springframework.dao.DataAccessException;
 
 public interface PetsService {
 	Pet findPetById(int id) throws DataAccessException;
+	/**
+	 * The pet with its type, or null if there is no such pet or it belongs to another owner.
+	 */
+	Pet findPetByOwnerIdAndId(int ownerId, int petId) throws DataAccessException;
+	/**
+	 * Whether both the owner and the pet exist, whoever the pet belongs to.
+	 */
+	boolean existsOwnerAndPet(int ownerId, int petId) throws DataAccessException;
 	Collection<Pet> findAllPets() throws DataAccessException;
+	/**
+	 * The pets with the given ids, ordered by id; ids without a pet are left out.
+	 */
+	List<Pet> findPetsByIds(Collection<Integer> ids) throws DataAccessException;
+	void streamAllPets(Consumer<Pet> action) throws DataAccessException;
+	/**
+	 * The pets created or updated after {@code since} and the ids of those deleted after it; a full load if
+	 * {@code since} is the epoch.
+	 *
+	 * @throws ChangeSet.ExpiredException if the deletes since then are no longer known
+	 */
+	ChangeSet<Pet> findPetsChangedSince(Instant since) throws DataAccessException;
 	void savePet(Pet pet) throws DataAccessException;
 	void deletePet(Pet pet) throws DataAccessException;
+	/**
+	 * Updates the name, birth date and type of the pet with the pet's id, without loading it first.
+	 *
+	 * @return the number of pets updated, 0 if there is none with that id
+	 */
+	int updatePetFields(Pet pet) throws DataAccessException;
+	/**
+	 * @return the number of pets deleted, 0 if there is none with that id
+	 */
+	int deletePetById(int petId) throws DataAccessException;
 
 	Owner findOwnerById(int id) throws DataAccessException;
 	Collection<Owner> findAllOwners() throws DataAccessException;
+	/**
+	 * The owners with the given ids and their pets, ordered by id; ids without an owner are left out.
+	 */
+	List<Owner> findOwnersByIds(Collection<Integer> ids) throws DataAccessException;
+	Collection<Owner> findOwnersPage(int after, int limit) throws DataAccessException;
+	/**
+	 * The owners created or updated, or with pets added, updated or deleted, after {@code since} and the ids of those deleted after it; a full load if
+	 * {@code since} is the epoch.
+	 *
+	 * @throws ChangeSet.ExpiredException if the deletes since then are no longer known
+	 */
+	ChangeSet<Owner> findOwnersChangedSince(Instant since) throws DataAccessException;
 	void saveOwner(Owner owner) throws DataAccessException;
+	void saveOwners(Collection<Owner> owners) throws DataAccessException;
 	void deleteOwner(Owner owner) throws DataAccessException;
+	/**
+	 * Updates the fields of the owner with the owner's id, but not its pets, without loading it first.
+	 *
+	 * @return the number of owners updated, 0 if there is none with that id
+	 */
+	int updateOwnerFields(Owner owner) throws DataAccessException;
+	/**
+	 * Deletes the owner and its pets without loading them.
+	 *
+	 * @return the number of owners deleted, 0 if there is none with that id
+	 */
+	int deleteOwnerById(int ownerId) throws DataAccessException;
 	Collection<Owner> findOwnerByLastName(String lastName) throws DataAccessException;
+	/**
+	 * Owners whose last name, first name, city or telephone start with the words of the query, best match first.
+	 */
+	List<Owner> searchOwners(String query, int offset, int limit) throws DataAccessException;
 
 	PetType findPetTypeById(int petTypeId);
 	Collection<PetType> findAllPetTypes() throws DataAccessException;
+	/**
+	 * The pet types created or updated after {@code since} and the ids of those deleted after it; a full load if
+	 * {@code since} is the epoch.
+	 *
+	 * @throws ChangeSet.ExpiredException if the deletes since then are no longer known
+	 */
+	ChangeSet<PetType> findPetTypesChangedSince(Instant since) throws DataAccessException;
 	Collection<PetType> findPetTypes() throws DataAccessException;
 	void savePetType(PetType petType) throws DataAccessException;
 	void deletePetType(PetType petType) throws DataAccessException;
+	/**
+	 * @return the number of pet types deleted, 0 if there is none with that id
+	 */
+	int deletePetTypeById(int petTypeId) throws DataAccessException;
     PetType findPetTypeByName(String name) throws DataAccessException;
+
+	List<Visit> findVisitsByPetId(int petId, LocalDate from, LocalDate to, LocalDate beforeDate, Integer beforeId,
+								  int limit) throws DataAccessException;
+	void saveVisit(Visit visit) throws DataAccessException;
+
+	Vet findVetById(int id) throws DataAccessException;
+	List<Vet> findVetsWithSpecialties(Collection<Integer> specialtyIds);
+	void saveVet(Vet vet) throws DataAccessException;
+	void deleteVet(Vet vet) throws DataAccessException;
+
+	Specialty findSpecialtyById(int specialtyId) throws DataAccessException;
+	List<Specialty> findAllSpecialties() throws DataAccessException;
+	void saveSpecialty(Specialty specialty) throws DataAccessException;
+
+	Appointment findAppointmentById(int id) throws DataAccessException;
+	List<Appointment> findAppointmentsByVetId(int vetId, LocalDateTime from, LocalDateTime to) throws DataAccessException;
+	/**
+	 * Books the appointment in its own transaction, unless it overlaps another appointment of the vet or the pet.
+	 *
+	 * @return whether the appointment was booked
+	 */
+	boolean bookAppointment(Appointment appointment) throws DataAccessException;
+	void cancelAppointment(Appointment appointment) throws DataAccessException;
+	LocalDateTime findNextFreeSlot(int vetId, LocalDateTime from, Duration duration);
 }
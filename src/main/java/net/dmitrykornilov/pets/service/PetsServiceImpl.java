@@ -1,36 +1,124 @@
 package net.dmitrykornilov.pets.service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import net.dmitrykornilov.pets.cache.CacheConfig;
+import net.dmitrykornilov.pets.datasource.ReadsFromPrimary;
+import net.dmitrykornilov.pets.model.Appointment;
 import net.dmitrykornilov.pets.model.Owner;
 import net.dmitrykornilov.pets.model.Pet;
 import net.dmitrykornilov.pets.model.PetType;
+import net.dmitrykornilov.pets.model.Specialty;
+import net.dmitrykornilov.pets.model.Tombstone;
+import net.dmitrykornilov.pets.model.Vet;
+import net.dmitrykornilov.pets.model.Visit;
+import net.dmitrykornilov.pets.repository.AppointmentRepository;
 import net.dmitrykornilov.pets.repository.OwnerRepository;
 import net.dmitrykornilov.pets.repository.PetRepository;
 import net.dmitrykornilov.pets.repository.PetTypeRepository;
+import net.dmitrykornilov.pets.repository.SpecialtyRepository;
+import net.dmitrykornilov.pets.repository.TombstoneRepository;
+import net.dmitrykornilov.pets.repository.VetRepository;
+import net.dmitrykornilov.pets.repository.VisitRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class PetsServiceImpl implements PetsService {
+	private static final String OWNER_OF_PET_KNOWN = "#p0.owner != null && #p0.owner.id != null";
+	// the range of the SQL DATE type, used when a visit query leaves a bound open
+	private static final LocalDate FIRST_DATE = LocalDate.of(1, 1, 1);
+	private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+	// ids per IN list of a batch lookup, so that one statement never binds an unbounded number of parameters
+	private static final int ID_CHUNK_SIZE = 500;
+
     private final PetRepository petRepository;
     private final OwnerRepository ownerRepository;
 	private final PetTypeRepository petTypeRepository;
+	private final VisitRepository visitRepository;
+	private final VetRepository vetRepository;
+	private final SpecialtyRepository specialtyRepository;
+	private final VetSpecialtyIndex vetSpecialtyIndex;
+	private final ApplicationEventPublisher eventPublisher;
+	private final AppointmentRepository appointmentRepository;
+	private final AppointmentSchedule appointmentSchedule;
+	private final OwnerSearchIndex ownerSearchIndex;
+	private final TombstoneRepository tombstoneRepository;
+	private final SyncWindow syncWindow;
+	private final CacheManager cacheManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
 
     @Autowired
 	public PetsServiceImpl(
        		 PetRepository petRepository,
     		 OwnerRepository ownerRepository,
-			 PetTypeRepository petTypeRepository) {
+			 PetTypeRepository petTypeRepository,
+			 VisitRepository visitRepository,
+			 VetRepository vetRepository,
+			 SpecialtyRepository specialtyRepository,
+			 VetSpecialtyIndex vetSpecialtyIndex,
+			 ApplicationEventPublisher eventPublisher,
+			 AppointmentRepository appointmentRepository,
+			 AppointmentSchedule appointmentSchedule,
+			 OwnerSearchIndex ownerSearchIndex,
+			 TombstoneRepository tombstoneRepository,
+			 SyncWindow syncWindow,
+			 CacheManager cacheManager) {
         this.petRepository = petRepository;
         this.ownerRepository = ownerRepository;
 		this.petTypeRepository = petTypeRepository;
+		this.visitRepository = visitRepository;
+		this.vetRepository = vetRepository;
+		this.specialtyRepository = specialtyRepository;
+		this.vetSpecialtyIndex = vetSpecialtyIndex;
+		this.eventPublisher = eventPublisher;
+		this.appointmentRepository = appointmentRepository;
+		this.appointmentSchedule = appointmentSchedule;
+		this.ownerSearchIndex = ownerSearchIndex;
+		this.tombstoneRepository = tombstoneRepository;
+		this.syncWindow = syncWindow;
+		this.cacheManager = cacheManager;
     }
 
+	@Override
+	@Transactional(readOnly = true)
+	public Pet findPetByOwnerIdAndId(int ownerId, int petId) throws DataAccessException {
+		return petRepository.findByOwnerIdAndId(ownerId, petId);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public boolean existsOwnerAndPet(int ownerId, int petId) throws DataAccessException {
+		return petRepository.countPetAndOwner(ownerId, petId) > 0;
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<Pet> findAllPets() throws DataAccessException {
@@ -38,9 +126,68 @@ public class PetsServiceImpl implements PetsService {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
+	public List<Pet> findPetsByIds(Collection<Integer> ids) throws DataAccessException {
+		return findInChunks(ids, petRepository::findAllByIdIn);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void streamAllPets(Consumer<Pet> action) throws DataAccessException {
+		try (Stream<Pet> pets = petRepository.streamAll()) {
+			int count = 0;
+			for (var it = pets.iterator(); it.hasNext(); ) {
+				action.accept(it.next());
+				// drop what we have already handed out so the persistence context does not grow with the table
+				if (++count % PetRepository.STREAM_FETCH_SIZE == 0) {
+					entityManager.clear();
+				}
+			}
+		}
+	}
+
+	@Override
+	@ReadsFromPrimary
+	@Transactional(readOnly = true)
+	public ChangeSet<Pet> findPetsChangedSince(Instant since) throws DataAccessException {
+		return changedSince(since, Tombstone.PET, petRepository::findAll, petRepository::findChangedSince);
+	}
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.OWNERS, key = "#p0.owner.id", condition = OWNER_OF_PET_KNOWN)
 	@Transactional
 	public void deletePet(Pet pet) throws DataAccessException {
 		petRepository.delete(pet);
+		eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.PET, pet.getId(), ChangeFeed.Action.DELETED));
+	}
+
+	// the owner is looked up by the pet's primary key alone, since its cached aggregate embeds the pet
+	@Override
+	@Transactional
+	public int updatePetFields(Pet pet) throws DataAccessException {
+		Integer ownerId = petRepository.findOwnerIdById(pet.getId());
+		if (ownerId == null) {
+			return 0;
+		}
+		int updated = petRepository.update(pet.getId(), pet.getName(), pet.getBirthDate(),
+										   entityManager.getReference(PetType.class, pet.getType().getId()),
+										   Instant.now());
+		evictOwnerAfterCommit(ownerId);
+		eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.PET, pet.getId(), ChangeFeed.Action.UPDATED));
+		return updated;
+	}
+
+	@Override
+	@Transactional
+	public int deletePetById(int petId) throws DataAccessException {
+		Integer ownerId = petRepository.findOwnerIdById(petId);
+		if (ownerId == null) {
+			return 0;
+		}
+		int deleted = petRepository.deleteById(petId);
+		evictOwnerAfterCommit(ownerId);
+		eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.PET, petId, ChangeFeed.Action.DELETED));
+		return deleted;
 	}
 
 	@Override
@@ -50,12 +197,80 @@ public class PetsServiceImpl implements PetsService {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
+	public List<Owner> findOwnersByIds(Collection<Integer> ids) throws DataAccessException {
+		return findInChunks(ids, ownerRepository::findAllByIdIn);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Owner> findOwnersPage(int after, int limit) throws DataAccessException {
+		List<Integer> ids = ownerRepository.findIdsAfter(after, Limit.of(limit));
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		// page on the owners table alone, then fetch the page's pets in one join instead of paging a join
+		return ownerRepository.findAllByIdIn(ids);
+	}
+
+	@Override
+	@ReadsFromPrimary
+	@Transactional(readOnly = true)
+	public ChangeSet<Owner> findOwnersChangedSince(Instant since) throws DataAccessException {
+		return changedSince(since, Tombstone.OWNER, ownerRepository::findAll, after -> {
+			List<Integer> ids = ownerRepository.findIdsChangedSince(after);
+			return ids.isEmpty() ? List.of() : ownerRepository.findAllByIdIn(ids);
+		});
+	}
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.OWNERS, key = "#p0.id")
 	@Transactional
 	public void deleteOwner(Owner owner) throws DataAccessException {
+		List<Integer> petIds = petRepository.findIdsByOwnerId(owner.getId());
 		ownerRepository.delete(owner);
+		eventPublisher.publishEvent(new OwnerSearchIndex.OwnerDeleted(owner.getId()));
+		eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.OWNER, owner.getId(),
+														   ChangeFeed.Action.DELETED));
+		publishPetsDeleted(petIds);
+	}
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.OWNERS, key = "#p0.id")
+	@Transactional
+	public int updateOwnerFields(Owner owner) throws DataAccessException {
+		int updated = ownerRepository.update(owner, Instant.now());
+		if (updated > 0) {
+			// the update bumped the stored version, not the given owner's
+			owner.setVersion(ownerRepository.findVersionById(owner.getId()));
+			eventPublisher.publishEvent(new OwnerSearchIndex.OwnerSaved(owner));
+			eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.OWNER, owner.getId(),
+															   ChangeFeed.Action.UPDATED));
+		}
+		return updated;
+	}
+
+	// the pets go first, as the entity delete would cascade to them
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.OWNERS, key = "#p0")
+	@Transactional
+	public int deleteOwnerById(int ownerId) throws DataAccessException {
+		List<Integer> petIds = petRepository.findIdsByOwnerId(ownerId);
+		petRepository.deleteByOwnerId(ownerId);
+		int deleted = ownerRepository.deleteById(ownerId);
+		if (deleted > 0) {
+			eventPublisher.publishEvent(new OwnerSearchIndex.OwnerDeleted(ownerId));
+			eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.OWNER, ownerId,
+															   ChangeFeed.Action.DELETED));
+			publishPetsDeleted(petIds);
+		}
+		return deleted;
 	}
 
 	@Override
+	@CopyResult
+	@Cacheable(cacheNames = CacheConfig.PET_TYPES, unless = "#result == null")
+	@ReadsFromPrimary
     @Transactional(readOnly = true)
 	public PetType findPetTypeById(int petTypeId) {
 		PetType petType = null;
@@ -69,30 +284,66 @@ public class PetsServiceImpl implements PetsService {
 	}
 
 	@Override
+	@CopyResult
+	@Cacheable(cacheNames = CacheConfig.PET_TYPE_LISTS, key = "'all'")
+	@SingleFlight
+	@ReadsFromPrimary
 	@Transactional(readOnly = true)
 	public Collection<PetType> findAllPetTypes() throws DataAccessException {
 		return petTypeRepository.findAll();
 	}
 
 	@Override
+	@ReadsFromPrimary
+	@Transactional(readOnly = true)
+	public ChangeSet<PetType> findPetTypesChangedSince(Instant since) throws DataAccessException {
+		return changedSince(since, Tombstone.PET_TYPE, petTypeRepository::findAll, petTypeRepository::findChangedSince);
+	}
+
+	@Override
+	@EvictPetTypes
 	@Transactional
 	public void savePetType(PetType petType) throws DataAccessException {
+		ChangeFeed.Action action = petType.isNew() ? ChangeFeed.Action.CREATED : ChangeFeed.Action.UPDATED;
 		petTypeRepository.save(petType);
+		eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.PET_TYPE, petType.getId(), action));
 	}
 
 	@Override
+	@EvictPetTypes
 	@Transactional
 	public void deletePetType(PetType petType) throws DataAccessException {
 		petTypeRepository.delete(petType);
+		eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.PET_TYPE, petType.getId(),
+														   ChangeFeed.Action.DELETED));
+	}
+
+	@Override
+	@EvictPetTypes
+	@Transactional
+	public int deletePetTypeById(int petTypeId) throws DataAccessException {
+		int deleted = petTypeRepository.deleteById(petTypeId);
+		if (deleted > 0) {
+			eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.PET_TYPE, petTypeId,
+															   ChangeFeed.Action.DELETED));
+		}
+		return deleted;
 	}
 
 	@Override
+	@CopyResult
+	@Cacheable(cacheNames = CacheConfig.PET_TYPE_LISTS, key = "'sorted'")
+	@ReadsFromPrimary
 	@Transactional(readOnly = true)
 	public Collection<PetType> findPetTypes() throws DataAccessException {
 		return petRepository.findPetTypes();
 	}
 
 	@Override
+	@CopyResult
+	@Cacheable(cacheNames = CacheConfig.OWNERS, unless = "#result == null")
+	@SingleFlight
+	@ReadsFromPrimary
 	@Transactional(readOnly = true)
 	public Owner findOwnerById(int id) throws DataAccessException {
 		Owner owner = null;
@@ -106,6 +357,8 @@ public class PetsServiceImpl implements PetsService {
 	}
 
 	@Override
+	@CopyResult
+	@SingleFlight
 	@Transactional(readOnly = true)
 	public Pet findPetById(int id) throws DataAccessException {
 		Pet pet = null;
@@ -119,25 +372,75 @@ public class PetsServiceImpl implements PetsService {
 	}
 
 	@Override
+	@CacheEvict(cacheNames = CacheConfig.OWNERS, key = "#p0.owner.id", condition = OWNER_OF_PET_KNOWN)
 	@Transactional
 	public void savePet(Pet pet) throws DataAccessException {
+		ChangeFeed.Action action = pet.isNew() ? ChangeFeed.Action.CREATED : ChangeFeed.Action.UPDATED;
 		petRepository.save(pet);
+		eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.PET, pet.getId(), action));
 	}
 
 	@Override
+	@CacheEvict(cacheNames = CacheConfig.OWNERS, key = "#p0.id", condition = "#p0.id != null")
 	@Transactional
 	public void saveOwner(Owner owner) throws DataAccessException {
-		ownerRepository.save(owner);
+		ChangeFeed.Action action = owner.isNew() ? ChangeFeed.Action.CREATED : ChangeFeed.Action.UPDATED;
+		// the owner's new pets are inserted through the cascade, and told apart from the stored ones afterwards
+		Collection<Integer> storedPetIds = owner.isNew() ? Set.of()
+				: Set.copyOf(petRepository.findIdsByOwnerId(owner.getId()));
+		Owner saved = ownerRepository.save(owner);
+		eventPublisher.publishEvent(new OwnerSearchIndex.OwnerSaved(saved));
+		eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.OWNER, owner.getId(), action));
+		publishPetsCreated(saved, storedPetIds);
+	}
 
+	// meant for importing new owners, which cannot be cached yet, so nothing is evicted; pets are persisted through the cascade
+	@Override
+	@Transactional
+	public void saveOwners(Collection<Owner> owners) throws DataAccessException {
+		for (Owner owner : owners) {
+			Owner saved = ownerRepository.save(owner);
+			eventPublisher.publishEvent(new OwnerSearchIndex.OwnerSaved(saved));
+			eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.OWNER, owner.getId(),
+															   ChangeFeed.Action.CREATED));
+			publishPetsCreated(saved, Set.of());
+		}
 	}
 
+
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<Owner> findOwnerByLastName(String lastName) throws DataAccessException {
 		return ownerRepository.findByLastName(lastName);
 	}
 
+	// rank and page in memory, then load only the owners on the page
+	@Override
+	@Transactional(readOnly = true)
+	public List<Owner> searchOwners(String query, int offset, int limit) throws DataAccessException {
+		List<Integer> ids = ownerSearchIndex.search(query, offset, limit);
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		Map<Integer, Owner> owners = new HashMap<>();
+		for (Owner owner : ownerRepository.findAllByIdIn(ids)) {
+			owners.put(owner.getId(), owner);
+		}
+		List<Owner> page = new ArrayList<>(ids.size());
+		for (Integer id : ids) {
+			Owner owner = owners.get(id);
+			// deleted after the index was read
+			if (owner != null) {
+				page.add(owner);
+			}
+		}
+		return page;
+	}
+
     @Override
+    @CopyResult
+    @Cacheable(cacheNames = CacheConfig.PET_TYPES_BY_NAME, unless = "#result == null")
+    @ReadsFromPrimary
     @Transactional(readOnly = true)
     public PetType findPetTypeByName(String name){
         PetType petType;
@@ -149,4 +452,142 @@ public class PetsServiceImpl implements PetsService {
         }
         return petType;
     }
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Visit> findVisitsByPetId(int petId, LocalDate from, LocalDate to, LocalDate beforeDate,
+										 Integer beforeId, int limit) throws DataAccessException {
+		LocalDate last = to != null ? to : LAST_DATE;
+		// without a cursor, start just past the newest possible visit of the range
+		if (beforeDate == null) {
+			beforeDate = last;
+			beforeId = Integer.MAX_VALUE;
+		}
+		return visitRepository.findByPetId(petId, from != null ? from : FIRST_DATE, last, beforeDate,
+										   beforeId != null ? beforeId : Integer.MAX_VALUE, Limit.of(limit));
+	}
+
+	// cached owners and pets do not carry visits, so nothing is evicted
+	@Override
+	@Transactional
+	public void saveVisit(Visit visit) throws DataAccessException {
+		visitRepository.save(visit);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Vet findVetById(int id) throws DataAccessException {
+		return vetRepository.findById(id);
+	}
+
+	// answered from memory; the index follows vet and specialty writes once they commit
+	@Override
+	public List<Vet> findVetsWithSpecialties(Collection<Integer> specialtyIds) {
+		return vetSpecialtyIndex.findVetsWithSpecialties(specialtyIds);
+	}
+
+	@Override
+	@Transactional
+	public void saveVet(Vet vet) throws DataAccessException {
+		eventPublisher.publishEvent(new VetSpecialtyIndex.VetSaved(vetRepository.save(vet)));
+	}
+
+	@Override
+	@Transactional
+	public void deleteVet(Vet vet) throws DataAccessException {
+		vetRepository.delete(vet);
+		eventPublisher.publishEvent(new VetSpecialtyIndex.VetDeleted(vet.getId()));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Specialty findSpecialtyById(int specialtyId) throws DataAccessException {
+		return specialtyRepository.findById(specialtyId);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Specialty> findAllSpecialties() throws DataAccessException {
+		return specialtyRepository.findAll();
+	}
+
+	@Override
+	@Transactional
+	public void saveSpecialty(Specialty specialty) throws DataAccessException {
+		specialtyRepository.save(specialty);
+		eventPublisher.publishEvent(new VetSpecialtyIndex.SpecialtySaved());
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Appointment findAppointmentById(int id) throws DataAccessException {
+		return appointmentRepository.findById(id);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Appointment> findAppointmentsByVetId(int vetId, LocalDateTime from, LocalDateTime to)
+		throws DataAccessException {
+		return appointmentRepository.findByVetId(vetId, from, to);
+	}
+
+	// not transactional: the schedule commits the insert before it releases the vet's and the pet's locks
+	@Override
+	public boolean bookAppointment(Appointment appointment) throws DataAccessException {
+		return appointmentSchedule.book(appointment);
+	}
+
+	@Override
+	public void cancelAppointment(Appointment appointment) throws DataAccessException {
+		appointmentSchedule.cancel(appointment);
+	}
+
+	@Override
+	public LocalDateTime findNextFreeSlot(int vetId, LocalDateTime from, Duration duration) {
+		return appointmentSchedule.findNextFreeSlot(vetId, from, duration);
+	}
+
+	private void publishPetsCreated(Owner owner, Collection<Integer> storedPetIds) {
+		for (Pet pet : owner.getPets()) {
+			if (!storedPetIds.contains(pet.getId())) {
+				eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.PET, pet.getId(),
+																   ChangeFeed.Action.CREATED));
+			}
+		}
+	}
+
+	private void publishPetsDeleted(Collection<Integer> petIds) {
+		for (Integer petId : petIds) {
+			eventPublisher.publishEvent(new ChangeFeed.Changed(ChangeFeed.Entity.PET, petId, ChangeFeed.Action.DELETED));
+		}
+	}
+
+	private <T> ChangeSet<T> changedSince(Instant since, String entity, Supplier<Collection<T>> all,
+										  Function<Instant, List<T>> changed) {
+		// taken before reading, so that whatever commits while we read is in the next sync
+		Instant syncedAt = syncWindow.syncedAt();
+		if (since.equals(Instant.EPOCH)) {
+			return new ChangeSet<>(List.copyOf(all.get()), List.of(), syncedAt);
+		}
+		syncWindow.checkRetained(since);
+		return new ChangeSet<>(changed.apply(since), tombstoneRepository.findEntityIdsDeletedSince(entity, since),
+							   syncedAt);
+	}
+
+	private static <T> List<T> findInChunks(Collection<Integer> ids, Function<List<Integer>, List<T>> find) {
+		List<Integer> distinct = ids.stream().distinct().sorted().toList();
+		List<T> found = new ArrayList<>(distinct.size());
+		for (int from = 0; from < distinct.size(); from += ID_CHUNK_SIZE) {
+			found.addAll(find.apply(distinct.subList(from, Math.min(from + ID_CHUNK_SIZE, distinct.size()))));
+		}
+		return found;
+	}
+
+	// the caching interceptor evicts after the commit, but it cannot know the owner of a pet it was not given
+	private void evictOwnerAfterCommit(int ownerId) {
+		var owners = cacheManager.getCache(CacheConfig.OWNERS);
+		if (owners != null) {
+			new TransactionAwareCacheDecorator(owners).evict(ownerId);
+		}
+	}
 }
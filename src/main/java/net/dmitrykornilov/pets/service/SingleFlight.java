@@ -0,0 +1,18 @@
+package net.dmitrykornilov.pets.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Concurrent calls of the annotated method with equal arguments share one invocation, see
+ * {@link SingleFlightAspect}. Only for reads whose result the callers may share, or which hand every caller a
+ * copy with {@link CopyResult}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@interface SingleFlight {
+}
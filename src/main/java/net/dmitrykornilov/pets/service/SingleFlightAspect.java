@@ -0,0 +1,89 @@
+package net.dmitrykornilov.pets.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.dmitrykornilov.pets.datasource.PrimaryReads;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Collapses concurrent calls of a {@link SingleFlight} method with equal arguments into one in-flight call,
+ * whose result or exception every caller gets.
+ * <p>
+ * The aspect runs inside the caching interceptor and outside the transaction interceptor, so only cache misses
+ * are coalesced and a flight costs one transaction however many callers it serves. A caller that arrives after
+ * a write committed may still get the result of a flight that started before the write, as if its read had
+ * been a little faster. Callers in a transaction of their own always call through, since they expect entities
+ * of their own persistence context, and so do callers pinned to the primary after a write, since a flight that
+ * started before their write committed, or that reads a replica, would hand them the state they overwrote. The callers of a flight get the same result, so methods returning entities
+ * also carry {@link CopyResult}, whose aspect runs outside this one and copies the result for each caller.
+ * <p>
+ * Every call is counted in {@value #METER}, tagged with the method and whether the call ran the flight
+ * ({@code leader}) or waited for another one ({@code coalesced}).
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+class SingleFlightAspect {
+    static final String METER = "pets.singleflight.calls";
+
+    private record Key(String method, List<Object> arguments) {
+    }
+
+    private final Map<Key, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+
+    private final MeterRegistry registry;
+
+    SingleFlightAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("@annotation(net.dmitrykornilov.pets.service.SingleFlight)")
+    Object coalesce(ProceedingJoinPoint invocation) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive() || PrimaryReads.isPinned()) {
+            return invocation.proceed();
+        }
+        String method = invocation.getSignature().getName();
+        var key = new Key(invocation.getSignature().toLongString(), Arrays.asList(invocation.getArgs()));
+        var flight = new CompletableFuture<>();
+        CompletableFuture<Object> current = flights.putIfAbsent(key, flight);
+        if (current != null) {
+            counter(method, "coalesced").increment();
+            try {
+                return current.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+        counter(method, "leader").increment();
+        try {
+            Object result = invocation.proceed();
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private Counter counter(String method, String role) {
+        return Counter.builder(METER)
+            .tag("method", method)
+            .tag("role", role)
+            .register(registry);
+    }
+}
@@ -0,0 +1,82 @@
+package net.dmitrykornilov.pets.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import net.dmitrykornilov.pets.repository.TombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The time bounds of delta syncs.
+ * <p>
+ * A sync hands out an instant a little before the one it read at, the lookback, because {@code updated_at} is
+ * set when a row is flushed, not when its transaction commits: a write flushed before the sync but committed
+ * after it would otherwise be skipped by the next one. The lookback only has to be longer than the writing
+ * transactions; a client gets the rows written in it twice, which is harmless. Syncs read from the primary,
+ * since a row that a lagging replica has not received yet would be older than the lookback by the next sync.
+ * <p>
+ * Tombstones are kept for the retention period and purged after it, so a client that has not synced for longer
+ * has to start over.
+ */
+@Component
+class SyncWindow {
+    private static final Logger log = LoggerFactory.getLogger(SyncWindow.class);
+
+    private final TombstoneRepository tombstoneRepository;
+
+    private final TransactionTemplate writeTransaction;
+
+    private final Duration lookback;
+
+    private final Duration retention;
+
+    private final Clock clock;
+
+    SyncWindow(TombstoneRepository tombstoneRepository,
+               PlatformTransactionManager transactionManager,
+               @Value("${pets.sync.lookback:5s}") Duration lookback,
+               @Value("${pets.sync.tombstone-retention:30d}") Duration retention) {
+        this.tombstoneRepository = tombstoneRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.lookback = lookback;
+        this.retention = retention;
+        this.clock = Clock.systemUTC();
+    }
+
+    /**
+     * The instant the next sync of a client syncing now starts from; taken before reading the changes.
+     */
+    Instant syncedAt() {
+        // tokens are epoch millis, so round down rather than lose the rows of the last fraction of a millisecond
+        return clock.instant().minus(lookback).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * @throws ChangeSet.ExpiredException if the tombstones of deletes after {@code since} may have been purged
+     */
+    void checkRetained(Instant since) {
+        Instant retainedSince = clock.instant().minus(retention);
+        if (since.isBefore(retainedSince)) {
+            throw new ChangeSet.ExpiredException(since, retainedSince);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pets.sync.purge-interval:PT1H}")
+    void purge() {
+        Instant before = clock.instant().minus(retention);
+        // HSQLDB warns about a delete that finds no rows, which would be logged on every idle run
+        if (tombstoneRepository.countOlderThan(before) == 0) {
+            return;
+        }
+        Integer purged = writeTransaction.execute(status -> tombstoneRepository.deleteOlderThan(before));
+        log.debug("Purged {} tombstones older than {}", purged, before);
+    }
+}
@@ -0,0 +1,230 @@
+package net.dmitrykornilov.pets.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.dmitrykornilov.pets.datasource.PrimaryReads;
+import net.dmitrykornilov.pets.model.Specialty;
+import net.dmitrykornilov.pets.model.Vet;
+import net.dmitrykornilov.pets.repository.VetRepository;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory answer to "which vets have all of these specialties", so that the query never touches the database.
+ * <p>
+ * Each specialty maps to a bit set of the ids of the vets that have it; a query intersects the sets of the
+ * requested specialties. The index holds detached copies of the vets and is published as an immutable snapshot:
+ * readers never lock, and writers build the next snapshot from the current one under a lock, cloning only the bit
+ * sets they touch. The index is loaded when the context starts and follows vet and specialty writes once they
+ * commit, skipping a vet write older than the version it holds. A reload queries the vets without holding the lock, so no thread waits on it for the database, and
+ * reads again if a vet write was applied in the meantime. Vets returned by the index are shared and must not be
+ * modified.
+ */
+@Component
+public class VetSpecialtyIndex {
+
+    /** Published by the service when a vet was created or updated. */
+    record VetSaved(Vet vet) {
+    }
+
+    /** Published by the service when a vet was deleted. */
+    record VetDeleted(int vetId) {
+    }
+
+    /** Published by the service when a specialty was created or renamed; vets embed specialty names. */
+    record SpecialtySaved() {
+    }
+
+    private record Snapshot(Map<Integer, Vet> vets, BitSet all, Map<Integer, BitSet> bySpecialty) {
+    }
+
+    private final VetRepository vetRepository;
+
+    private final TransactionTemplate readTransaction;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    // vet writes applied so far, guarded by the lock; tells a reload whether what it read is still current
+    private long writes;
+
+    VetSpecialtyIndex(VetRepository vetRepository, PlatformTransactionManager transactionManager) {
+        this.vetRepository = vetRepository;
+        // reloads also run from after-commit callbacks, where the finished transaction cannot be joined
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * The vets having every one of the given specialties, ordered by id; all vets when no specialty is given.
+     */
+    List<Vet> findVetsWithSpecialties(Collection<Integer> specialtyIds) {
+        Snapshot current = snapshot();
+        BitSet matches = null;
+        for (Integer specialtyId : specialtyIds) {
+            BitSet vets = current.bySpecialty.get(specialtyId);
+            if (vets == null) {
+                return List.of();
+            }
+            if (matches == null) {
+                matches = (BitSet) vets.clone();
+            } else {
+                matches.and(vets);
+            }
+        }
+        if (matches == null) {
+            matches = current.all;
+        }
+        List<Vet> result = new ArrayList<>(matches.cardinality());
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            result.add(current.vets.get(id));
+        }
+        return result;
+    }
+
+    /**
+     * Rebuilds the index from the database, e.g. after vets were written without going through the service.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void reload() {
+        while (true) {
+            long seen = writes();
+            // from the primary, since a lagging replica would keep old vets in the index until they are written
+            List<Vet> vets = PrimaryReads.call(() -> readTransaction.execute(status -> vetRepository.findAll()));
+            var next = new Snapshot(new HashMap<>(), new BitSet(), new HashMap<>());
+            for (Vet vet : vets) {
+                add(next, copy(vet));
+            }
+            lock.lock();
+            try {
+                // a vet write applied while we read may be missing from what we read, so it would be lost
+                if (writes == seen) {
+                    publish(next);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    void onVetSaved(VetSaved event) {
+        Vet vet = copy(event.vet());
+        // loads the index first if need be, since loading must not happen under the lock
+        snapshot();
+        lock.lock();
+        try {
+            Vet indexed = this.snapshot.vets.get(vet.getId());
+            // the after-commit listeners of concurrent writes may run in either order
+            if (indexed != null && indexed.getVersion() > vet.getVersion()) {
+                return;
+            }
+            Snapshot next = copyOf(this.snapshot);
+            remove(next, vet.getId());
+            add(next, vet);
+            publish(next);
+            writes++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    void onVetDeleted(VetDeleted event) {
+        snapshot();
+        lock.lock();
+        try {
+            Snapshot next = copyOf(this.snapshot);
+            remove(next, event.vetId());
+            publish(next);
+            writes++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    void onSpecialtySaved(SpecialtySaved event) {
+        reload();
+    }
+
+    private Snapshot snapshot() {
+        if (this.snapshot == null) {
+            reload();
+        }
+        return this.snapshot;
+    }
+
+    private long writes() {
+        lock.lock();
+        try {
+            return writes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publish(Snapshot next) {
+        this.snapshot = next;
+    }
+
+    // the bit sets are cloned lazily by add and remove, only when they change
+    private static Snapshot copyOf(Snapshot snapshot) {
+        return new Snapshot(new HashMap<>(snapshot.vets), (BitSet) snapshot.all.clone(),
+                            new HashMap<>(snapshot.bySpecialty));
+    }
+
+    private static void add(Snapshot next, Vet vet) {
+        next.vets.put(vet.getId(), vet);
+        next.all.set(vet.getId());
+        for (Specialty specialty : vet.getSpecialties()) {
+            BitSet vets = next.bySpecialty.get(specialty.getId());
+            vets = vets == null ? new BitSet() : (BitSet) vets.clone();
+            vets.set(vet.getId());
+            next.bySpecialty.put(specialty.getId(), vets);
+        }
+    }
+
+    private static void remove(Snapshot next, int vetId) {
+        Vet vet = next.vets.remove(vetId);
+        if (vet == null) {
+            return;
+        }
+        next.all.clear(vetId);
+        for (Specialty specialty : vet.getSpecialties()) {
+            BitSet vets = (BitSet) next.bySpecialty.get(specialty.getId()).clone();
+            vets.clear(vetId);
+            next.bySpecialty.put(specialty.getId(), vets);
+        }
+    }
+
+    private static Vet copy(Vet vet) {
+        var copy = new Vet();
+        copy.setId(vet.getId());
+        copy.setVersion(vet.getVersion());
+        copy.setFirstName(vet.getFirstName());
+        copy.setLastName(vet.getLastName());
+        for (Specialty specialty : vet.getSpecialties()) {
+            var specialtyCopy = new Specialty();
+            specialtyCopy.setId(specialty.getId());
+            specialtyCopy.setVersion(specialty.getVersion());
+            specialtyCopy.setName(specialty.getName());
+            copy.addSpecialty(specialtyCopy);
+        }
+        return copy;
+    }
+}
@@ -1,3 +1,8 @@
+DROP TRIGGER pets_tombstone IF EXISTS;
+DROP TRIGGER owners_tombstone IF EXISTS;
+DROP TRIGGER types_tombstone IF EXISTS;
+DROP TABLE tombstones IF EXISTS;
+DROP TABLE appointments IF EXISTS;
 DROP TABLE vet_specialties IF EXISTS;
 DROP TABLE vets IF EXISTS;
 DROP TABLE specialties IF EXISTS;
@@ -7,18 +12,39 @@ DROP TABLE types IF EXISTS;
 DROP TABLE owners IF EXISTS;
 DROP TABLE roles IF EXISTS;
 DROP TABLE users IF EXISTS;
+DROP SEQUENCE types_seq IF EXISTS;
+DROP SEQUENCE owners_seq IF EXISTS;
+DROP SEQUENCE pets_seq IF EXISTS;
+DROP SEQUENCE visits_seq IF EXISTS;
+DROP SEQUENCE vets_seq IF EXISTS;
+DROP SEQUENCE specialties_seq IF EXISTS;
+DROP SEQUENCE appointments_seq IF EXISTS;
+DROP SEQUENCE tombstones_seq IF EXISTS;
+
+-- ids of entities written through JPA come from pooled sequences so inserts can be batched;
+-- the increment must match the allocation size of the implicit <table>_seq generators Hibernate uses (50)
+CREATE SEQUENCE types_seq AS INTEGER START WITH 1000 INCREMENT BY 50;
+CREATE SEQUENCE owners_seq AS INTEGER START WITH 1000 INCREMENT BY 50;
+CREATE SEQUENCE pets_seq AS INTEGER START WITH 1000 INCREMENT BY 50;
+CREATE SEQUENCE visits_seq AS INTEGER START WITH 1000 INCREMENT BY 50;
+CREATE SEQUENCE vets_seq AS INTEGER START WITH 1000 INCREMENT BY 50;
+CREATE SEQUENCE specialties_seq AS INTEGER START WITH 1000 INCREMENT BY 50;
+CREATE SEQUENCE appointments_seq AS INTEGER START WITH 1000 INCREMENT BY 50;
+CREATE SEQUENCE tombstones_seq AS INTEGER START WITH 1;
 
 
 CREATE TABLE vets (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER GENERATED BY DEFAULT AS SEQUENCE vets_seq PRIMARY KEY,
   first_name VARCHAR(30),
-  last_name  VARCHAR(30)
+  last_name  VARCHAR(30),
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX vets_last_name ON vets (last_name);
 
 CREATE TABLE specialties (
-  id   INTEGER IDENTITY PRIMARY KEY,
-  name VARCHAR(80)
+  id   INTEGER GENERATED BY DEFAULT AS SEQUENCE specialties_seq PRIMARY KEY,
+  name VARCHAR(80),
+  version INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX specialties_name ON specialties (name);
 
@@ -28,42 +54,85 @@ CREATE TABLE vet_specialties (
 );
 ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_vets FOREIGN KEY (vet_id) REFERENCES vets (id);
 ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_specialties FOREIGN KEY (specialty_id) REFERENCES specialties (id);
+ALTER TABLE vet_specialties ADD CONSTRAINT pk_vet_specialties PRIMARY KEY (vet_id, specialty_id);
 
 CREATE TABLE types (
-  id   INTEGER IDENTITY PRIMARY KEY,
-  name VARCHAR(80)
+  id   INTEGER GENERATED BY DEFAULT AS SEQUENCE types_seq PRIMARY KEY,
+  name VARCHAR(80),
+  version INTEGER DEFAULT 0 NOT NULL,
+  updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
 );
 CREATE INDEX types_name ON types (name);
+CREATE INDEX types_updated_at ON types (updated_at);
 
 CREATE TABLE owners (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER GENERATED BY DEFAULT AS SEQUENCE owners_seq PRIMARY KEY,
   first_name VARCHAR(30),
   last_name  VARCHAR_IGNORECASE(30),
   address    VARCHAR(255),
   city       VARCHAR(80),
-  telephone  VARCHAR(20)
+  telephone  VARCHAR(20),
+  version    INTEGER DEFAULT 0 NOT NULL,
+  updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
 );
 CREATE INDEX owners_last_name ON owners (last_name);
+CREATE INDEX owners_updated_at ON owners (updated_at);
 
 CREATE TABLE pets (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER GENERATED BY DEFAULT AS SEQUENCE pets_seq PRIMARY KEY,
   name       VARCHAR(30),
   birth_date DATE,
   type_id    INTEGER NOT NULL,
-  owner_id   INTEGER NOT NULL
+  owner_id   INTEGER NOT NULL,
+  version    INTEGER DEFAULT 0 NOT NULL,
+  updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
 );
 ALTER TABLE pets ADD CONSTRAINT fk_pets_owners FOREIGN KEY (owner_id) REFERENCES owners (id);
 ALTER TABLE pets ADD CONSTRAINT fk_pets_types FOREIGN KEY (type_id) REFERENCES types (id);
 CREATE INDEX pets_name ON pets (name);
+CREATE INDEX pets_updated_at ON pets (updated_at);
+
+-- deleted owners, pets and types for delta syncs; written by triggers so that cascaded and bulk deletes
+-- leave one too, and purged after pets.sync.tombstone-retention
+CREATE TABLE tombstones (
+  id         INTEGER GENERATED BY DEFAULT AS SEQUENCE tombstones_seq PRIMARY KEY,
+  entity     VARCHAR(20) NOT NULL,
+  entity_id  INTEGER NOT NULL,
+  owner_id   INTEGER,
+  deleted_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+CREATE INDEX tombstones_entity_deleted_at ON tombstones (entity, deleted_at);
+CREATE TRIGGER types_tombstone AFTER DELETE ON types REFERENCING OLD ROW AS deleted FOR EACH ROW
+  INSERT INTO tombstones (entity, entity_id) VALUES ('type', deleted.id);
+CREATE TRIGGER owners_tombstone AFTER DELETE ON owners REFERENCING OLD ROW AS deleted FOR EACH ROW
+  INSERT INTO tombstones (entity, entity_id) VALUES ('owner', deleted.id);
+CREATE TRIGGER pets_tombstone AFTER DELETE ON pets REFERENCING OLD ROW AS deleted FOR EACH ROW
+  INSERT INTO tombstones (entity, entity_id, owner_id) VALUES ('pet', deleted.id, deleted.owner_id);
 
 CREATE TABLE visits (
-  id          INTEGER IDENTITY PRIMARY KEY,
+  id          INTEGER GENERATED BY DEFAULT AS SEQUENCE visits_seq PRIMARY KEY,
   pet_id      INTEGER NOT NULL,
   visit_date  DATE,
-  description VARCHAR(255)
+  description VARCHAR(255),
+  version     INTEGER DEFAULT 0 NOT NULL
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
-CREATE INDEX visits_pet_id ON visits (pet_id);
+-- a pet's history is read newest first by date range and (visit_date, id) keyset
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date, id);
+
+CREATE TABLE appointments (
+  id          INTEGER GENERATED BY DEFAULT AS SEQUENCE appointments_seq PRIMARY KEY,
+  vet_id      INTEGER NOT NULL,
+  pet_id      INTEGER NOT NULL,
+  start_time  TIMESTAMP NOT NULL,
+  end_time    TIMESTAMP NOT NULL,
+  description VARCHAR(255),
+  version     INTEGER DEFAULT 0 NOT NULL
+);
+ALTER TABLE appointments ADD CONSTRAINT fk_appointments_vets FOREIGN KEY (vet_id) REFERENCES vets (id);
+ALTER TABLE appointments ADD CONSTRAINT fk_appointments_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
+CREATE INDEX appointments_vet_id_start_time ON appointments (vet_id, start_time);
+CREATE INDEX appointments_pet_id_start_time ON appointments (pet_id, start_time);
 
 CREATE  TABLE users (
   username    VARCHAR(20) NOT NULL ,
@@ -0,0 +1,137 @@
+package net.dmitrykornilov.pets.datasource;
+
+import java.time.Instant;
+
+import javax.sql.DataSource;
+
+import jakarta.servlet.http.Cookie;
+import net.dmitrykornilov.pets.cache.CacheConfig;
+import net.dmitrykornilov.pets.model.Owner;
+import net.dmitrykornilov.pets.service.PetsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "spring.cache.type=caffeine",
+    "spring.cache.cache-names=petTypes,petTypesByName,petTypeLists",
+    "pets.cache.specs.owners=maximumSize=100,expireAfterWrite=5m"
+})
+@ActiveProfiles("replicas")
+class ReadWriteRoutingTests {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PetsService petsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void shouldSendReadOnlyTransactionsToReplica() {
+        assertThat(database(true)).isNotEqualTo(database(false));
+        assertThat(database(true)).isEqualTo(database(true));
+    }
+
+    @Test
+    void shouldReadYourWritesFromPrimary() {
+        String primary = database(false);
+        var response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        assertThat(database(true)).isNotEqualTo(primary);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+            status -> new JdbcTemplate(dataSource).update("UPDATE owners SET city = city WHERE id = 1"));
+        Cookie cookie = response.getCookie(ReadYourWrites.COOKIE);
+        assertThat(cookie).isNotNull();
+        assertThat(database(true)).isEqualTo(primary);
+
+        var next = new MockHttpServletRequest();
+        next.setCookies(cookie);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(next, new MockHttpServletResponse()));
+        assertThat(database(true)).isEqualTo(primary);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(),
+                                                                               new MockHttpServletResponse()));
+        assertThat(database(true)).isNotEqualTo(primary);
+    }
+
+    @Test
+    void shouldCacheOwnersReadFromPrimary() {
+        Owner owner = petsService.findOwnerById(2);
+        String city = owner.getCity();
+        owner.setCity("Replicaville");
+        petsService.saveOwner(owner);
+        try {
+            // another client, which the write did not pin to the primary; the write is not replicated
+            otherClient();
+            assertThat(city(true)).isEqualTo(city);
+            assertThat(petsService.findOwnerById(2).getCity()).isEqualTo("Replicaville");
+            assertThat(petsService.findOwnerById(2).getCity()).isEqualTo("Replicaville");
+        } finally {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> new JdbcTemplate(dataSource)
+                .update("UPDATE owners SET city = ? WHERE id = 2", city));
+            cacheManager.getCache(CacheConfig.OWNERS).clear();
+        }
+    }
+
+    @Test
+    void shouldSyncFromPrimary() {
+        Instant since = Instant.now().minusSeconds(1);
+        Owner owner = petsService.findOwnerById(3);
+        String city = owner.getCity();
+        owner.setCity("Replicaville");
+        petsService.saveOwner(owner);
+        try {
+            otherClient();
+            assertThat(petsService.findOwnersChangedSince(since).changed())
+                .extracting(Owner::getId).contains(3);
+        } finally {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> new JdbcTemplate(dataSource)
+                .update("UPDATE owners SET city = ? WHERE id = 3", city));
+            cacheManager.getCache(CacheConfig.OWNERS).clear();
+        }
+    }
+
+    private void otherClient() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(),
+                                                                               new MockHttpServletResponse()));
+    }
+
+    private String city(boolean readOnly) {
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> new JdbcTemplate(dataSource).queryForObject(
+            "SELECT city FROM owners WHERE id = 2", String.class));
+    }
+
+    // the unique name of the database the transaction ran on
+    private String database(boolean readOnly) {
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(
+            status -> new JdbcTemplate(dataSource).queryForObject("VALUES DATABASE_NAME()", String.class));
+    }
+}
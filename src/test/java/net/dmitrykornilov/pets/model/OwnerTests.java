@@ -0,0 +1,83 @@
+package net.dmitrykornilov.pets.model;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OwnerTests {
+
+    private static Pet pet(Integer id, String name) {
+        Pet pet = new Pet();
+        pet.setId(id);
+        pet.setName(name);
+        return pet;
+    }
+
+    @Test
+    void shouldReturnPetsSortedByNameIgnoringCase() {
+        Owner owner = new Owner();
+        owner.addPet(pet(1, "max"));
+        owner.addPet(pet(2, "Basil"));
+        owner.addPet(pet(3, "Leo"));
+
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Basil", "Leo", "max");
+        assertThatThrownBy(() -> owner.getPets().add(pet(4, "Rosy"))).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void shouldReuseViewUntilPetsChange() {
+        Owner owner = new Owner();
+        owner.addPet(pet(1, "Leo"));
+        List<Pet> pets = owner.getPets();
+        assertThat(owner.getPets()).isSameAs(pets);
+
+        owner.addPet(pet(2, "Basil"));
+        assertThat(owner.getPets()).isNotSameAs(pets).extracting(Pet::getName).containsExactly("Basil", "Leo");
+
+        owner.setPets(List.of(pet(3, "Rosy")));
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Rosy");
+        assertThat(owner.getPet("leo")).isNull();
+    }
+
+    @Test
+    void shouldRebuildViewWhenPetIsRenamed() {
+        Owner owner = new Owner();
+        Pet leo = pet(1, "Leo");
+        owner.addPet(leo);
+        owner.addPet(pet(2, "Basil"));
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Basil", "Leo");
+
+        leo.setName("Abby");
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Abby", "Basil");
+        assertThat(owner.getPet("abby")).isSameAs(leo);
+        assertThat(owner.getPet("leo")).isNull();
+    }
+
+    @Test
+    void shouldFindPetByNameIgnoringCase() {
+        Owner owner = new Owner();
+        Pet leo = pet(1, "Leo");
+        owner.addPet(leo);
+
+        assertThat(owner.getPet("LEO")).isSameAs(leo);
+        assertThat(owner.getPet("leo", true)).isSameAs(leo);
+        assertThat(owner.getPet("Basil")).isNull();
+    }
+
+    @Test
+    void shouldSkipNewPetsWhenAsked() {
+        Owner owner = new Owner();
+        Pet newLeo = pet(null, "Leo");
+        owner.addPet(newLeo);
+
+        assertThat(owner.getPet("Leo")).isSameAs(newLeo);
+        assertThat(owner.getPet("Leo", true)).isNull();
+
+        Pet savedLeo = pet(7, "leo");
+        owner.addPet(savedLeo);
+        assertThat(owner.getPet("LEO", true)).isSameAs(savedLeo);
+    }
+}
@@ -0,0 +1,41 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.dmitrykornilov.pets.service.PetsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MetricsAspectTests {
+
+    @Autowired
+    private PetsService petsService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void shouldRecordServiceInvocations() {
+        long statements = JdbcActivity.statements();
+        petsService.findVisitsByPetId(7, null, null, null, null, 20);
+        assertThat(JdbcActivity.statements()).isGreaterThan(statements);
+
+        Timer timer = registry.find(MetricsAspect.SERVICE)
+            .tags("method", "findVisitsByPetId", "outcome", "SUCCESS")
+            .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+        var executed = registry.find(MetricsAspect.SERVICE + ".jdbc.statements")
+            .tags("method", "findVisitsByPetId")
+            .summary();
+        assertThat(executed.totalAmount()).isGreaterThanOrEqualTo(1);
+        var read = registry.find(MetricsAspect.SERVICE + ".jdbc.rows")
+            .tags("method", "findVisitsByPetId")
+            .summary();
+        assertThat(read.totalAmount()).isGreaterThanOrEqualTo(2);
+    }
+}
@@ -0,0 +1,55 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "pets.server-timing.enabled=true")
+class ServerTimingTests {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private FilterRegistrationBean<ServerTimingFilter> serverTimingFilter;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void initMockMvc() {
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(context)
+            .addFilter(serverTimingFilter.getFilter(), "/api/*")
+            .build();
+    }
+
+    @Test
+    void shouldReportPhasesOfJsonResponse() throws Exception {
+        this.mockMvc.perform(get("/api/owners/1").accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(1))
+            .andExpect(header().string(RequestTimings.HEADER, allOf(containsString("db;dur="),
+                                                                    containsString("map;dur="),
+                                                                    containsString("serialize;dur="),
+                                                                    containsString("total;dur="))));
+    }
+
+    @Test
+    void shouldReportResponseWithoutBody() throws Exception {
+        this.mockMvc.perform(get("/api/owners/9999").accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isNotFound())
+            .andExpect(header().string(RequestTimings.HEADER, containsString("db;dur=")));
+    }
+}
@@ -0,0 +1,52 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import java.util.List;
+
+import net.dmitrykornilov.pets.service.PetsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SqlStatisticsTests {
+
+    @Autowired
+    private PetsService petsService;
+
+    @Autowired
+    private SqlStatisticsEndpoint endpoint;
+
+    @Test
+    void shouldNormalizeLiteralsAndParameterLists() {
+        assertThat(SqlStatistics.normalize("select *\n  from owners o where o.id in (?, ?,?) and o.city = 'O''Hare' and x1 > 10"))
+            .isEqualTo("select * from owners o where o.id in (?) and o.city = ? and x1 > ?");
+    }
+
+    @Test
+    void shouldKeepInsertParameters() {
+        assertThat(SqlStatistics.normalize("insert into pets (name, birth_date, type_id) values (?, ?, ?)"))
+            .isEqualTo("insert into pets (name, birth_date, type_id) values (?, ?, ?)");
+        assertThat(SqlStatistics.normalize("select * from pets where type_id IN(?,?) and name = ?"))
+            .isEqualTo("select * from pets where type_id IN(?) and name = ?");
+    }
+
+    @Test
+    void shouldRecordExecutionsAndRowsPerStatement() {
+        endpoint.reset();
+        int pets = petsService.findAllPets().size();
+        petsService.findAllPets();
+
+        List<SqlStatistics.StatementStatistics> statements = endpoint.statements(null);
+        assertThat(statements).isNotEmpty();
+        SqlStatistics.StatementStatistics findAllPets = statements.stream()
+            .filter(statement -> statement.sql().contains("from pets"))
+            .findFirst()
+            .orElseThrow();
+        assertThat(findAllPets.count()).isEqualTo(2);
+        assertThat(findAllPets.rows()).isEqualTo(2L * pets);
+        assertThat(findAllPets.maxMillis()).isGreaterThanOrEqualTo(findAllPets.meanMillis());
+        assertThat(endpoint.statements(0)).isEmpty();
+    }
+}
@@ -0,0 +1,21 @@
+package net.dmitrykornilov.pets.monitoring;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"pets.metrics.enabled=false", "pets.server-timing.enabled=false"})
+class StatementCountingTests {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void shouldNotWrapDataSourceWhenNothingReadsTheCounts() {
+        assertThat(dataSource).isNotInstanceOf(StatementCountingDataSource.class);
+    }
+}
@@ -0,0 +1,131 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import net.dmitrykornilov.pets.model.Appointment;
+import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.model.Vet;
+import net.dmitrykornilov.pets.rest.dto.AppointmentDto;
+import net.dmitrykornilov.pets.service.ApplicationTestConfig;
+import net.dmitrykornilov.pets.service.PetsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ContextConfiguration(classes = ApplicationTestConfig.class)
+@WebAppConfiguration
+class AppointmentRestControllerTests {
+    @MockBean
+    protected PetsService petsService;
+
+    @Autowired
+    private AppointmentRestController appointmentRestController;
+
+    private MockMvc mockMvc;
+
+    private final ObjectMapper mapper = createObjectMapper();
+
+    private LocalDateTime tomorrow;
+
+    @BeforeEach
+    void initAppointments() {
+        this.mockMvc = MockMvcBuilders.standaloneSetup(appointmentRestController).build();
+
+        tomorrow = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS).withHour(9);
+        var vet = new Vet();
+        vet.setId(1);
+        var pet = new Pet();
+        pet.setId(7);
+        given(this.petsService.findVetById(1)).willReturn(vet);
+        given(this.petsService.findPetById(7)).willReturn(pet);
+    }
+
+    @Test
+    void testBookAppointmentSuccess() throws Exception {
+        willAnswer(invocation -> {
+            invocation.<Appointment>getArgument(0).setId(1000);
+            return true;
+        }).given(this.petsService).bookAppointment(any(Appointment.class));
+        var appointment = new AppointmentDto(null, 1, 7, tomorrow, tomorrow.plusMinutes(30), "check-up");
+        this.mockMvc.perform(post("/api/appointments")
+                .content(mapper.writeValueAsString(appointment))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isCreated())
+            .andExpect(header().string("Location", "/api/appointments/1000"))
+            .andExpect(jsonPath("$.vetId").value(1))
+            .andExpect(jsonPath("$.petId").value(7));
+    }
+
+    @Test
+    void testBookAppointmentConflict() throws Exception {
+        given(this.petsService.bookAppointment(any(Appointment.class))).willReturn(false);
+        var appointment = new AppointmentDto(null, 1, 7, tomorrow, tomorrow.plusMinutes(30), "check-up");
+        this.mockMvc.perform(post("/api/appointments")
+                .content(mapper.writeValueAsString(appointment))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testBookAppointmentEmptyInterval() throws Exception {
+        var appointment = new AppointmentDto(null, 1, 7, tomorrow, tomorrow, "check-up");
+        this.mockMvc.perform(post("/api/appointments")
+                .content(mapper.writeValueAsString(appointment))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest());
+        verify(this.petsService, never()).bookAppointment(any(Appointment.class));
+    }
+
+    @Test
+    void testBookAppointmentUnknownPet() throws Exception {
+        var appointment = new AppointmentDto(null, 1, 99, tomorrow, tomorrow.plusMinutes(30), "check-up");
+        this.mockMvc.perform(post("/api/appointments")
+                .content(mapper.writeValueAsString(appointment))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest());
+        verify(this.petsService, never()).bookAppointment(any(Appointment.class));
+    }
+
+    @Test
+    void testFindNextFreeSlot() throws Exception {
+        given(this.petsService.findNextFreeSlot(1, tomorrow, Duration.ofMinutes(45))).willReturn(tomorrow.plusHours(1));
+        this.mockMvc.perform(get("/api/vets/1/appointments/next-free")
+                .param("from", tomorrow.toString())
+                .param("minutes", "45")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.vetId").value(1));
+        verify(this.petsService).findNextFreeSlot(1, tomorrow, Duration.ofMinutes(45));
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        var mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+}
@@ -0,0 +1,65 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.time.Duration;
+import java.util.List;
+
+import net.dmitrykornilov.pets.service.ApplicationTestConfig;
+import net.dmitrykornilov.pets.service.ChangeFeed;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ContextConfiguration(classes = ApplicationTestConfig.class)
+@WebAppConfiguration
+class ChangeFeedRestControllerTests {
+    @MockBean
+    protected ChangeFeed changeFeed;
+
+    @Autowired
+    private ChangeFeedRestController changeFeedRestController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void initChangeFeed() {
+        this.mockMvc = MockMvcBuilders.standaloneSetup(changeFeedRestController).build();
+    }
+
+    @Test
+    void testStreamChangesResumesAfterLastEventId() throws Exception {
+        given(this.changeFeed.await(eq(5L), anyInt(), any(Duration.class)))
+            .willReturn(List.of(new ChangeFeed.Change(6, ChangeFeed.Entity.PET, 7, ChangeFeed.Action.UPDATED)));
+        given(this.changeFeed.await(eq(6L), anyInt(), any(Duration.class)))
+            .willThrow(new ChangeFeed.GapException(6, 2000));
+        MvcResult result = this.mockMvc.perform(get("/api/changes")
+                .header("Last-Event-ID", "5")
+                .accept(MediaType.TEXT_EVENT_STREAM_VALUE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        this.mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("id:6\nevent:change\n")))
+            .andExpect(content().string(containsString("\"entity\":\"pet\",\"id\":7,\"action\":\"updated\"")))
+            .andExpect(content().string(containsString("event:reset\n")));
+    }
+}
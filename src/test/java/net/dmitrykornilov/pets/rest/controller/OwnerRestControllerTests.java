@@ -3,11 +3,15 @@ package net.dmitrykornilov.pets.rest.controller;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.dmitrykornilov.pets.mapper.OwnerMapper;
 import net.dmitrykornilov.pets.mapper.PetMapper;
+import net.dmitrykornilov.pets.model.Owner;
+import net.dmitrykornilov.pets.model.Pet;
 import net.dmitrykornilov.pets.rest.dto.OwnerDto;
 import net.dmitrykornilov.pets.rest.dto.PetDto;
 import net.dmitrykornilov.pets.rest.dto.PetTypeDto;
@@ -18,22 +22,38 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -53,6 +73,10 @@ class OwnerRestControllerTests {
     @MockBean
     private PetsService petsService;
 
+    // the application's mapper, which knows how to read merge patches
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private MockMvc mockMvc;
 
     private final ObjectMapper mapper = createObjectMapper();
@@ -63,7 +87,9 @@ class OwnerRestControllerTests {
 
     @BeforeEach
     void initOwners() {
-        this.mockMvc = MockMvcBuilders.standaloneSetup(ownerRestController).build();
+        this.mockMvc = MockMvcBuilders.standaloneSetup(ownerRestController)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
 
         owners.clear();
         owners.add(new OwnerDto(1, "John", "Doe", "123 Camden High Street", "London ", "123456", new ArrayList<>()));
@@ -92,6 +118,30 @@ class OwnerRestControllerTests {
                 .andExpect(jsonPath("$.firstName").value("John"));
     }
 
+    @Test
+    void testGetOwnerNotModified() throws Exception {
+        var owner = ownerMapper.toOwner(owners.get(0));
+        owner.setVersion(3);
+        given(this.petsService.findOwnerById(1)).willReturn(owner);
+
+        var etag = this.mockMvc.perform(get("/api/owners/1").accept(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"3-")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc.perform(get("/api/owners/1").accept(MediaType.APPLICATION_JSON_VALUE)
+                                     .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        // renaming a pet changes the owner's representation, so the tag must change as well
+        owner.getPets().get(0).setVersion(1);
+        this.mockMvc.perform(get("/api/owners/1").accept(MediaType.APPLICATION_JSON_VALUE)
+                                     .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void testGetOwnerNotFound() throws Exception {
         given(this.petsService.findOwnerById(2)).willReturn(null);
@@ -113,6 +163,16 @@ class OwnerRestControllerTests {
                 .andExpect(jsonPath("$.[1].firstName").value("Joe"));
     }
 
+    @Test
+    void testSearchOwnersLinksNextPage() throws Exception {
+        given(this.petsService.searchOwners("ja", 2, 2)).willReturn(List.copyOf(ownerMapper.toOwners(owners.subList(1, 3))));
+        this.mockMvc.perform(get("/api/owners?q=ja&offset=2&limit=2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id").value(2))
+                .andExpect(jsonPath("$.[1].id").value(3))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("offset=4")));
+    }
+
     @Test
     void testGetOwnersListNotFound() throws Exception {
         given(this.petsService.findOwnerByLastName("0")).willReturn(Collections.emptyList());
@@ -122,25 +182,50 @@ class OwnerRestControllerTests {
 
     @Test
     void testGetAllOwnersSuccess() throws Exception {
-        given(this.petsService.findAllOwners()).willReturn(ownerMapper.toOwners(owners));
+        given(this.petsService.findOwnersPage(0, OwnerRestController.DEFAULT_PAGE_SIZE))
+                .willReturn(ownerMapper.toOwners(owners));
         this.mockMvc.perform(get("/api/owners/").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType("application/json"))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK))
                 .andExpect(jsonPath("$.[0].id").value(1))
                 .andExpect(jsonPath("$.[0].firstName").value("John"))
                 .andExpect(jsonPath("$.[1].id").value(2))
                 .andExpect(jsonPath("$.[1].firstName").value("Jane"));
     }
 
+    @Test
+    void testGetOwnersPageWithNextLink() throws Exception {
+        given(this.petsService.findOwnersPage(1, 2)).willReturn(ownerMapper.toOwners(owners.subList(1, 3)));
+        this.mockMvc.perform(get("/api/owners?limit=2&after=1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$.[0].id").value(2))
+                .andExpect(jsonPath("$.[1].id").value(3))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("limit=2&after=3>; rel=\"next\"")));
+    }
+
+    @Test
+    void testGetOwnersPageLimitIsCapped() throws Exception {
+        given(this.petsService.findOwnersPage(0, OwnerRestController.MAX_PAGE_SIZE))
+                .willReturn(ownerMapper.toOwners(owners));
+        this.mockMvc.perform(get("/api/owners?limit=" + (OwnerRestController.MAX_PAGE_SIZE + 1))
+                                     .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4));
+    }
+
     @Test
     void testGetAllOwnersNotFound() throws Exception {
-        given(this.petsService.findAllOwners()).willReturn(Collections.emptyList());
+        given(this.petsService.findOwnersPage(0, OwnerRestController.DEFAULT_PAGE_SIZE))
+                .willReturn(Collections.emptyList());
         this.mockMvc.perform(get("/api/owners/").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
 
     @Test
     void testCreateOwnerSuccess() throws Exception {
+        given(this.petsService.findPetTypeById(2)).willReturn(petMapper.toPetType(new PetTypeDto(2, "dog")));
         var ownerDto = owners.get(0);
         ownerDto.setId(null);
 
@@ -149,6 +234,13 @@ class OwnerRestControllerTests {
                                      .content(ownerDtoJson).accept(MediaType.APPLICATION_JSON_VALUE)
                                      .contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(status().isCreated());
+
+        var saved = ArgumentCaptor.forClass(Owner.class);
+        verify(this.petsService).saveOwner(saved.capture());
+        assertThat(saved.getValue().getPets()).allSatisfy(pet -> {
+            assertThat(pet.getOwner()).isSameAs(saved.getValue());
+            assertThat(pet.getType().getName()).isEqualTo("dog");
+        });
     }
 
     @Test
@@ -166,7 +258,7 @@ class OwnerRestControllerTests {
 
     @Test
     void testUpdateOwnerSuccess() throws Exception {
-        given(this.petsService.findOwnerById(1)).willReturn(ownerMapper.toOwner(owners.get(0)));
+        given(this.petsService.updateOwnerFields(any())).willReturn(1);
 
         var ownerId = owners.get(0).getId();
         var updatedOwnerDto = new OwnerDto();
@@ -184,17 +276,74 @@ class OwnerRestControllerTests {
                 .andExpect(content().contentType("application/json"))
                 .andExpect(status().isNoContent());
 
-        this.mockMvc.perform(get("/api/owners/" + ownerId)
-                                     .accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON_VALUE))
+        var updated = ArgumentCaptor.forClass(Owner.class);
+        verify(this.petsService).updateOwnerFields(updated.capture());
+        assertThat(updated.getValue().getId()).isEqualTo(ownerId);
+        assertThat(updated.getValue().getFirstName()).isEqualTo("Johnny");
+        verify(this.petsService, never()).findOwnerById(anyInt());
+    }
+
+    @Test
+    void testUpdateOwnerPreconditionFailed() throws Exception {
+        var owner = ownerMapper.toOwner(owners.get(0));
+        owner.setVersion(2);
+        given(this.petsService.findOwnerById(1)).willReturn(owner);
+
+        var ownerDtoJson = this.mapper.writeValueAsString(owners.get(0));
+        this.mockMvc.perform(put("/api/owners/1")
+                                     .header(HttpHeaders.IF_MATCH, "\"1-0\"")
+                                     .content(ownerDtoJson).accept(MediaType.APPLICATION_JSON_VALUE)
+                                     .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isPreconditionFailed());
+        verify(this.petsService, never()).saveOwner(any());
+    }
+
+    @Test
+    void testUpdateOwnerConcurrentlyModified() throws Exception {
+        var owner = ownerMapper.toOwner(owners.get(0));
+        given(this.petsService.findOwnerById(1)).willReturn(owner);
+        willThrow(new ObjectOptimisticLockingFailureException(Owner.class, 1)).given(this.petsService).saveOwner(any());
+
+        var ownerDtoJson = this.mapper.writeValueAsString(owners.get(0));
+        this.mockMvc.perform(put("/api/owners/1")
+                                     .header(HttpHeaders.IF_MATCH, EntityTags.of(owner))
+                                     .content(ownerDtoJson).accept(MediaType.APPLICATION_JSON_VALUE)
+                                     .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testPatchOwnerSuccess() throws Exception {
+        var owner = ownerMapper.toOwner(owners.get(0));
+        given(this.petsService.findOwnerById(1)).willReturn(owner);
+
+        this.mockMvc.perform(patch("/api/owners/1")
+                                     .content("{\"city\": \"Leeds\"}").accept(MediaType.APPLICATION_JSON_VALUE)
+                                     .contentType("application/merge-patch+json"))
                 .andExpect(status().isOk())
-                .andExpect(content().contentType("application/json"))
-                .andExpect(jsonPath("$.id").value(ownerId))
-                .andExpect(jsonPath("$.firstName").value("Johnny"));
+                .andExpect(jsonPath("$.city").value("Leeds"))
+                .andExpect(jsonPath("$.lastName").value("Doe"));
+        verify(this.petsService).saveOwner(owner);
+        assertThat(owner.getCity()).isEqualTo("Leeds");
+        assertThat(owner.getTelephone()).isEqualTo("123456");
+    }
+
+    @Test
+    void testPatchOwnerClearingRequiredField() throws Exception {
+        var owner = ownerMapper.toOwner(owners.get(0));
+        given(this.petsService.findOwnerById(1)).willReturn(owner);
+
+        this.mockMvc.perform(patch("/api/owners/1")
+                                     .content("{\"lastName\": null}").accept(MediaType.APPLICATION_JSON_VALUE)
+                                     .contentType("application/merge-patch+json"))
+                .andExpect(status().isBadRequest());
+        verify(this.petsService, never()).saveOwner(any());
+        assertThat(owner.getLastName()).isEqualTo("Doe");
     }
 
     @Test
     void testUpdateOwnerSuccessNoBodyId() throws Exception {
-        given(this.petsService.findOwnerById(1)).willReturn(ownerMapper.toOwner(owners.get(0)));
+        given(this.petsService.updateOwnerFields(any())).willReturn(1);
 
         var ownerId = owners.get(0).getId();
         var updatedOwnerDto = new OwnerDto();
@@ -211,12 +360,11 @@ class OwnerRestControllerTests {
                 .andExpect(content().contentType("application/json"))
                 .andExpect(status().isNoContent());
 
-        this.mockMvc.perform(get("/api/owners/" + ownerId)
-                                     .accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON_VALUE))
-                .andExpect(status().isOk())
-                .andExpect(content().contentType("application/json"))
-                .andExpect(jsonPath("$.id").value(ownerId))
-                .andExpect(jsonPath("$.firstName").value("Johnny"));
+        var updated = ArgumentCaptor.forClass(Owner.class);
+        verify(this.petsService).updateOwnerFields(updated.capture());
+        assertThat(updated.getValue().getId()).isEqualTo(ownerId);
+        assertThat(updated.getValue().getFirstName()).isEqualTo("Johnny");
+        verify(this.petsService, never()).findOwnerById(anyInt());
 
     }
 
@@ -234,7 +382,7 @@ class OwnerRestControllerTests {
 
     @Test
     void testDeleteOwnerSuccess() throws Exception {
-        given(this.petsService.findOwnerById(1)).willReturn(ownerMapper.toOwner(owners.get(0)));
+        given(this.petsService.deleteOwnerById(1)).willReturn(1);
         this.mockMvc.perform(delete("/api/owners/1")
                                      .accept(MediaType.APPLICATION_JSON_VALUE)
                                      .contentType(MediaType.APPLICATION_JSON_VALUE))
@@ -259,6 +407,10 @@ class OwnerRestControllerTests {
                                      .content(petDtoAsJson).accept(MediaType.APPLICATION_JSON_VALUE)
                                      .contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(status().isCreated());
+
+        var saved = ArgumentCaptor.forClass(Pet.class);
+        verify(this.petsService).savePet(saved.capture());
+        assertThat(saved.getValue().getId()).isNull();
     }
 
     @Test
@@ -281,16 +433,24 @@ class OwnerRestControllerTests {
         given(this.petsService.findAllOwners()).willReturn(ownerMapper.toOwners(owners));
 
         var owner = ownerMapper.toOwner(owners.get(0));
-        given(this.petsService.findOwnerById(2)).willReturn(owner);
-
         var pet = petMapper.toPet(pets.get(0));
         pet.setOwner(owner);
-        given(this.petsService.findPetById(1)).willReturn(pet);
+        given(this.petsService.findPetByOwnerIdAndId(2, 1)).willReturn(pet);
 
         this.mockMvc.perform(get("/api/owners/2/pets/1")
                                      .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType("application/json"));
+        verify(this.petsService, never()).findOwnerById(anyInt());
+        verify(this.petsService, never()).existsOwnerAndPet(anyInt(), anyInt());
+    }
+
+    @Test
+    void testGetOwnersPetOfAnotherOwner() throws Exception {
+        given(this.petsService.existsOwnerAndPet(2, 3)).willReturn(true);
+        this.mockMvc.perform(get("/api/owners/2/pets/3")
+                                     .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -301,6 +461,81 @@ class OwnerRestControllerTests {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testImportOwnersFromJsonArray() throws Exception {
+        givenPetTypeAndSavedOwnersGetIds();
+        owners.forEach(owner -> owner.setId(null));
+        owners.get(1).setFirstName("J4ne");
+
+        this.mockMvc.perform(post("/api/owners/bulk")
+                                     .content(this.mapper.writeValueAsString(owners.subList(0, 3)))
+                                     .accept(MediaType.APPLICATION_JSON_VALUE)
+                                     .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].id").value(100))
+                .andExpect(jsonPath("$[1].id").doesNotExist())
+                .andExpect(jsonPath("$[1].errors[0]").value(containsString("firstName")))
+                .andExpect(jsonPath("$[2].id").value(101));
+        verify(this.petsService, times(1)).saveOwners(any());
+    }
+
+    @Test
+    void testImportOwnersFromNdjson() throws Exception {
+        givenPetTypeAndSavedOwnersGetIds();
+        owners.forEach(owner -> owner.setId(null));
+        owners.get(1).setPets(List.of(new PetDto(null, null, "Rex", LocalDate.now(), new PetTypeDto(42, "unknown"))));
+
+        var ndjson = new StringBuilder();
+        for (OwnerDto owner : owners.subList(0, 2)) {
+            ndjson.append(this.mapper.writeValueAsString(owner)).append('\n');
+        }
+        ndjson.append("{\"firstName\": [1]}\n");
+        this.mockMvc.perform(post("/api/owners/bulk")
+                                     .content(ndjson.toString())
+                                     .accept(MediaType.APPLICATION_JSON_VALUE)
+                                     .contentType(MediaType.APPLICATION_NDJSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].id").value(100))
+                .andExpect(jsonPath("$[1].errors[0]").value("pets[0].type.id: unknown pet type 42"))
+                .andExpect(jsonPath("$[2].errors").isNotEmpty());
+    }
+
+    @Test
+    void testImportOwnersRejectsNulls() throws Exception {
+        givenPetTypeAndSavedOwnersGetIds();
+        owners.forEach(owner -> owner.setId(null));
+        owners.get(1).setPets(Collections.singletonList(null));
+        var items = new ArrayList<>(owners.subList(0, 2));
+        items.add(1, null);
+
+        this.mockMvc.perform(post("/api/owners/bulk")
+                                     .content(this.mapper.writeValueAsString(items))
+                                     .accept(MediaType.APPLICATION_JSON_VALUE)
+                                     .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].id").value(100))
+                .andExpect(jsonPath("$[1].id").doesNotExist())
+                .andExpect(jsonPath("$[1].errors").isNotEmpty())
+                .andExpect(jsonPath("$[2].errors[0]").value("pets[0]: must not be null"));
+    }
+
+    private void givenPetTypeAndSavedOwnersGetIds() {
+        given(this.petsService.findPetTypeById(2)).willReturn(petMapper.toPetType(new PetTypeDto(2, "dog")));
+        var ids = new AtomicInteger(100);
+        willAnswer(invocation -> {
+            Collection<Owner> saved = invocation.getArgument(0);
+            saved.forEach(owner -> {
+                assertThat(owner.getPets()).allSatisfy(pet -> assertThat(pet.getOwner()).isSameAs(owner));
+                owner.setId(ids.getAndIncrement());
+            });
+            return null;
+        }).given(this.petsService).saveOwners(any());
+    }
+
     private static ObjectMapper createObjectMapper() {
         var mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
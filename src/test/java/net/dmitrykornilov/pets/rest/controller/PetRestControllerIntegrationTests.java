@@ -0,0 +1,131 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.time.LocalDateTime;
+
+import net.dmitrykornilov.pets.model.Appointment;
+import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.rest.dto.PetDto;
+import net.dmitrykornilov.pets.rest.dto.PetTypeDto;
+import net.dmitrykornilov.pets.service.PetsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Writes through the real service and repositories, which the controller tests mock.
+ */
+@SpringBootTest
+class PetRestControllerIntegrationTests {
+    private static final int PET_ID = 12;
+
+    @Autowired
+    private PetRestController petRestController;
+
+    @Autowired
+    private PetsService petsService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+
+    private Pet original;
+
+    @BeforeEach
+    void initPets() {
+        this.mockMvc = MockMvcBuilders.standaloneSetup(petRestController)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+        original = petsService.findPetById(PET_ID);
+    }
+
+    @AfterEach
+    void restorePet() {
+        Pet pet = petsService.findPetById(PET_ID);
+        pet.setName(original.getName());
+        pet.setBirthDate(original.getBirthDate());
+        pet.setType(petsService.findPetTypeById(original.getType().getId()));
+        petsService.savePet(pet);
+    }
+
+    @Test
+    void testUpdatePetWithIfMatch() throws Exception {
+        var update = new PetDto(PET_ID, original.getOwner().getId(), "Lucky II", original.getBirthDate(),
+                                new PetTypeDto(3, "lizard"));
+        this.mockMvc.perform(put("/api/pets/" + PET_ID)
+                .header(HttpHeaders.IF_MATCH, etag())
+                .content(objectMapper.writeValueAsString(update))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isNoContent());
+
+        Pet pet = petsService.findPetById(PET_ID);
+        assertThat(pet.getName()).isEqualTo("Lucky II");
+        assertThat(pet.getType().getId()).isEqualTo(3);
+        assertThat(pet.getVersion()).isEqualTo(original.getVersion() + 1);
+    }
+
+    @Test
+    void testPatchPetWithIfMatch() throws Exception {
+        this.mockMvc.perform(patch("/api/pets/" + PET_ID)
+                .header(HttpHeaders.IF_MATCH, etag())
+                .content("{\"name\":\"Lucky II\"}")
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType("application/merge-patch+json"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("Lucky II"))
+            .andExpect(jsonPath("$.type.id").value(original.getType().getId()));
+
+        this.mockMvc.perform(patch("/api/pets/" + PET_ID)
+                .header(HttpHeaders.IF_MATCH, etag())
+                .content("{\"type\":{\"id\":3}}")
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType("application/merge-patch+json"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("Lucky II"))
+            .andExpect(jsonPath("$.type.id").value(3));
+
+        Pet pet = petsService.findPetById(PET_ID);
+        assertThat(pet.getName()).isEqualTo("Lucky II");
+        assertThat(pet.getType().getId()).isEqualTo(3);
+        assertThat(pet.getVersion()).isEqualTo(original.getVersion() + 2);
+    }
+
+    @Test
+    void testDeletePetWithAppointment() throws Exception {
+        var appointment = new Appointment();
+        appointment.setVet(petsService.findVetById(1));
+        appointment.setPet(original);
+        appointment.setStart(LocalDateTime.now().plusDays(1).withNano(0));
+        appointment.setEnd(appointment.getStart().plusMinutes(30));
+        assertThat(petsService.bookAppointment(appointment)).isTrue();
+        try {
+            this.mockMvc.perform(delete("/api/pets/" + PET_ID))
+                .andExpect(status().isConflict());
+            this.mockMvc.perform(delete("/api/pets/" + PET_ID).header(HttpHeaders.IF_MATCH, etag()))
+                .andExpect(status().isConflict());
+            assertThat(petsService.findPetById(PET_ID)).isNotNull();
+        } finally {
+            petsService.cancelAppointment(appointment);
+        }
+    }
+
+    private String etag() throws Exception {
+        return this.mockMvc.perform(get("/api/pets/" + PET_ID).accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -3,9 +3,12 @@ package net.dmitrykornilov.pets.rest.controller;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 import net.dmitrykornilov.pets.mapper.PetMapper;
+import net.dmitrykornilov.pets.model.Pet;
 import net.dmitrykornilov.pets.rest.dto.PetDto;
 import net.dmitrykornilov.pets.rest.dto.PetTypeDto;
 import net.dmitrykornilov.pets.service.ApplicationTestConfig;
@@ -15,23 +18,34 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -58,6 +72,7 @@ class PetRestControllerTests {
         this.mockMvc = MockMvcBuilders.standaloneSetup(petRestController).build();
 
         var dogType = new PetTypeDto(2, "dog");
+        given(this.petsService.findPetTypeById(2)).willReturn(petMapper.toPetType(dogType));
 
         petDtoList.clear();
         petDtoList.add(new PetDto(3, 1, "Falco", LocalDate.now(), dogType));
@@ -75,6 +90,53 @@ class PetRestControllerTests {
             .andExpect(jsonPath("$.name").value("Falco"));
     }
 
+    @Test
+    void testGetPetsByIds() throws Exception {
+        given(this.petsService.findPetsByIds(any())).willReturn(List.of(petMapper.toPet(petDtoList.get(1)),
+                                                                        petMapper.toPet(petDtoList.get(0))));
+        this.mockMvc.perform(get("/api/pets?ids=3,99,4,3")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(2))
+            .andExpect(jsonPath("$.items[0].name").value("Falco"))
+            .andExpect(jsonPath("$.items[1].name").value("Filimon"))
+            .andExpect(jsonPath("$.missingIds[0]").value(99));
+        verify(this.petsService).findPetsByIds(new LinkedHashSet<>(List.of(3, 99, 4)));
+    }
+
+    @Test
+    void testLookupPetsTooMany() throws Exception {
+        var ids = new ArrayList<Integer>();
+        for (int id = 1; id <= BatchLookups.MAX_IDS + 1; id++) {
+            ids.add(id);
+        }
+        this.mockMvc.perform(post("/api/pets/lookup")
+                .content(this.mapper.writeValueAsString(ids))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest());
+        verify(this.petsService, never()).findPetsByIds(any());
+    }
+
+    @Test
+    void testGetPetNotModified() throws Exception {
+        var pet = petMapper.toPet(petDtoList.get(0));
+        pet.setVersion(5);
+        given(this.petsService.findPetById(3)).willReturn(pet);
+
+        this.mockMvc.perform(get("/api/pets/3")
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"5-0\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"5-0\""));
+
+        pet.getType().setVersion(1);
+        this.mockMvc.perform(get("/api/pets/3")
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"5-0\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"5-1\""));
+    }
+
     @Test
     void testGetPetNotFound() throws Exception {
         given(petMapper.toPetDto(this.petsService.findPetById(-1))).willReturn(null);
@@ -106,9 +168,53 @@ class PetRestControllerTests {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testExportPetsAsNdjson() throws Exception {
+        var pets = petMapper.toPets(this.petDtoList);
+        willAnswer(invocation -> {
+            Consumer<Pet> action = invocation.getArgument(0);
+            pets.forEach(action);
+            return null;
+        }).given(this.petsService).streamAllPets(any());
+
+        var result = this.mockMvc.perform(get("/api/pets")
+                .accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        var body = this.mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+            .andReturn().getResponse().getContentAsString();
+
+        var lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(this.mapper.readValue(lines[0], PetDto.class).getName()).isEqualTo("Falco");
+        assertThat(this.mapper.readValue(lines[1], PetDto.class).getName()).isEqualTo("Filimon");
+    }
+
+    @Test
+    void testStreamPetsAsJsonArray() throws Exception {
+        var pets = petMapper.toPets(this.petDtoList);
+        willAnswer(invocation -> {
+            Consumer<Pet> action = invocation.getArgument(0);
+            pets.forEach(action);
+            return null;
+        }).given(this.petsService).streamAllPets(any());
+
+        var result = this.mockMvc.perform(get("/api/pets?stream=true")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        this.mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(3))
+            .andExpect(jsonPath("$.[1].name").value("Filimon"));
+    }
+
     @Test
     void testUpdatePetSuccess() throws Exception {
-        given(this.petsService.findPetById(3)).willReturn(petMapper.toPet(petDtoList.get(0)));
+        given(this.petsService.updatePetFields(any())).willReturn(1);
 
         var petDto = petDtoList.get(0);
         petDto.setName("Fallius");
@@ -119,15 +225,44 @@ class PetRestControllerTests {
             .andExpect(content().contentType("application/json"))
             .andExpect(status().isNoContent());
 
-        this.mockMvc.perform(get("/api/pets/3")
-                .accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON_VALUE))
-            .andExpect(status().isOk())
-            .andExpect(content().contentType("application/json"))
-            .andExpect(jsonPath("$.id").value(3))
-            .andExpect(jsonPath("$.name").value("Fallius"));
+        var updated = ArgumentCaptor.forClass(Pet.class);
+        verify(this.petsService).updatePetFields(updated.capture());
+        assertThat(updated.getValue().getId()).isEqualTo(3);
+        assertThat(updated.getValue().getName()).isEqualTo("Fallius");
+        verify(this.petsService, never()).findPetById(anyInt());
 
     }
 
+    @Test
+    void testUpdatePetUnknownType() throws Exception {
+        var petDto = petDtoList.get(0);
+        petDto.setType(new PetTypeDto(99, "unknown"));
+        this.mockMvc.perform(put("/api/pets/3")
+                .content(this.mapper.writeValueAsString(petDto))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest());
+        verify(this.petsService, never()).updatePetFields(any());
+    }
+
+    @Test
+    void testUpdatePetPreconditionFailed() throws Exception {
+        var pet = petMapper.toPet(petDtoList.get(0));
+        pet.setVersion(1);
+        given(this.petsService.findPetById(3)).willReturn(pet);
+
+        this.mockMvc.perform(put("/api/pets/3")
+                .header(HttpHeaders.IF_MATCH, "\"0-0\"")
+                .content(this.mapper.writeValueAsString(petDtoList.get(0)))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isPreconditionFailed());
+
+        this.mockMvc.perform(put("/api/pets/3")
+                .header(HttpHeaders.IF_MATCH, "\"1-0\"")
+                .content(this.mapper.writeValueAsString(petDtoList.get(0)))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isNoContent());
+    }
+
     @Test
     void testUpdatePetError() throws Exception {
         var petDto = petDtoList.get(0);
@@ -141,7 +276,7 @@ class PetRestControllerTests {
 
     @Test
     void testDeletePetSuccess() throws Exception {
-        given(this.petsService.findPetById(3)).willReturn(petMapper.toPet(petDtoList.get(0)));
+        given(this.petsService.deletePetById(3)).willReturn(1);
         this.mockMvc.perform(delete("/api/pets/3")
                                      .accept(MediaType.APPLICATION_JSON_VALUE)
                                      .contentType(MediaType.APPLICATION_JSON_VALUE))
@@ -168,6 +303,17 @@ class PetRestControllerTests {
             .andExpect(status().isOk());
     }
 
+    @Test
+    void testAddPetUnknownType() throws Exception {
+        var petDto = petDtoList.get(0);
+        petDto.setType(new PetTypeDto(99, "unknown"));
+        this.mockMvc.perform(post("/api/pets")
+                .content(this.mapper.writeValueAsString(petDto))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest());
+        verify(this.petsService, never()).savePet(any());
+    }
+
     @Test
     void testAddPetError() throws Exception {
         this.mockMvc.perform(post("/api/pets")
@@ -1,5 +1,7 @@
 package net.dmitrykornilov.pets.rest.controller;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -7,6 +9,7 @@ import java.util.List;
 import net.dmitrykornilov.pets.mapper.PetTypeMapper;
 import net.dmitrykornilov.pets.model.PetType;
 import net.dmitrykornilov.pets.service.ApplicationTestConfig;
+import net.dmitrykornilov.pets.service.ChangeSet;
 import net.dmitrykornilov.pets.service.PetsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,12 +17,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -75,6 +80,32 @@ class PetTypeRestControllerTests {
     	petTypes.add(petType);
     }
 
+    @Test
+    void testSyncPetTypesSuccess() throws Exception {
+        Instant since = Instant.ofEpochMilli(1_700_000_000_000L);
+        Instant syncedAt = since.plus(Duration.ofMinutes(5));
+        given(this.petsService.findPetTypesChangedSince(since))
+            .willReturn(new ChangeSet<>(List.of(petTypes.get(1)), List.of(5), syncedAt));
+        this.mockMvc.perform(get("/api/pettypes?since=" + since.toEpochMilli())
+            .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[0].name").value("dog"))
+            .andExpect(jsonPath("$.deletedIds[0]").value(5))
+            .andExpect(jsonPath("$.syncToken").value(Long.toString(syncedAt.toEpochMilli())));
+    }
+
+    @Test
+    void testSyncPetTypesExpiredToken() throws Exception {
+        given(this.petsService.findPetTypesChangedSince(any(Instant.class)))
+            .willThrow(new ChangeSet.ExpiredException(Instant.EPOCH, Instant.now()));
+        this.mockMvc.perform(get("/api/pettypes?since=1")
+            .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isGone());
+        this.mockMvc.perform(get("/api/pettypes?since=-1")
+            .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetPetTypeSuccess() throws Exception {
     	given(this.petsService.findPetTypeById(1)).willReturn(petTypes.get(0));
@@ -109,6 +140,43 @@ class PetTypeRestControllerTests {
         	.andExpect(jsonPath("$.[1].name").value("snake"));
     }
 
+    @Test
+    void testGetAllPetTypesNotModified() throws Exception {
+    	given(this.petsService.findAllPetTypes()).willReturn(petTypes);
+        var etag = this.mockMvc.perform(get("/api/pettypes")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc.perform(get("/api/pettypes")
+        	.accept(MediaType.APPLICATION_JSON)
+        	.header(HttpHeaders.IF_NONE_MATCH, "W/" + etag))
+            .andExpect(status().isNotModified());
+
+    	petTypes.get(1).setVersion(1);
+        this.mockMvc.perform(get("/api/pettypes")
+        	.accept(MediaType.APPLICATION_JSON)
+        	.header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetAllPetTypesTaggedByIdsAndVersions() throws Exception {
+        // the ids and versions of these two lists had the same hash code
+        petTypes.get(0).setVersion(31);
+        given(this.petsService.findAllPetTypes()).willReturn(petTypes.subList(0, 1));
+        var etag = this.mockMvc.perform(get("/api/pettypes")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        given(this.petsService.findAllPetTypes()).willReturn(petTypes.subList(1, 2));
+        this.mockMvc.perform(get("/api/pettypes")
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk());
+    }
+
     @Test
     void testGetAllPetTypesNotFound() throws Exception {
     	given(this.petsService.findAllPetTypes()).willReturn(Collections.emptyList());
@@ -181,7 +249,7 @@ class PetTypeRestControllerTests {
 
     @Test
     void testDeletePetTypeSuccess() throws Exception {
-    	given(this.petsService.findPetTypeById(1)).willReturn(petTypes.get(0));
+    	given(this.petsService.deletePetTypeById(1)).willReturn(1);
     	this.mockMvc.perform(delete("/api/pettypes/1")
     		.accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
         	.andExpect(status().isNoContent());
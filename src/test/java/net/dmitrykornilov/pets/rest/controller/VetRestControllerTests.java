@@ -0,0 +1,153 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.Specialty;
+import net.dmitrykornilov.pets.model.Vet;
+import net.dmitrykornilov.pets.rest.dto.SpecialtyDto;
+import net.dmitrykornilov.pets.rest.dto.VetDto;
+import net.dmitrykornilov.pets.service.ApplicationTestConfig;
+import net.dmitrykornilov.pets.service.PetsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ContextConfiguration(classes = ApplicationTestConfig.class)
+@WebAppConfiguration
+class VetRestControllerTests {
+    @MockBean
+    protected PetsService petsService;
+
+    @Autowired
+    private VetRestController vetRestController;
+
+    private MockMvc mockMvc;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Specialty surgery;
+
+    private Specialty dentistry;
+
+    private Vet linda;
+
+    @BeforeEach
+    void initVets() {
+        this.mockMvc = MockMvcBuilders.standaloneSetup(vetRestController).build();
+
+        surgery = specialty(2, "surgery");
+        dentistry = specialty(3, "dentistry");
+        linda = new Vet();
+        linda.setId(3);
+        linda.setFirstName("Linda");
+        linda.setLastName("Douglas");
+        linda.setSpecialties(List.of(surgery, dentistry));
+    }
+
+    @Test
+    void testListVetsWithSpecialtiesSuccess() throws Exception {
+        given(this.petsService.findVetsWithSpecialties(List.of(2, 3))).willReturn(List.of(linda));
+        this.mockMvc.perform(get("/api/vets?specialtyId=2&specialtyId=3")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$[0].id").value(3))
+            .andExpect(jsonPath("$[0].lastName").value("Douglas"))
+            .andExpect(jsonPath("$[0].specialties[0].name").value("dentistry"))
+            .andExpect(jsonPath("$[0].specialties[1].name").value("surgery"));
+    }
+
+    @Test
+    void testListVetsNotFound() throws Exception {
+        given(this.petsService.findVetsWithSpecialties(List.of(1, 3))).willReturn(List.of());
+        this.mockMvc.perform(get("/api/vets?specialtyId=1,3")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetVetSuccess() throws Exception {
+        given(this.petsService.findVetById(3)).willReturn(linda);
+        this.mockMvc.perform(get("/api/vets/3")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.firstName").value("Linda"));
+    }
+
+    @Test
+    void testGetVetNotFound() throws Exception {
+        this.mockMvc.perform(get("/api/vets/99")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testCreateVetSuccess() throws Exception {
+        given(this.petsService.findSpecialtyById(2)).willReturn(surgery);
+        willAnswer(invocation -> {
+            invocation.<Vet>getArgument(0).setId(1000);
+            return null;
+        }).given(this.petsService).saveVet(any(Vet.class));
+        var newVet = new VetDto(null, "Mary", "Smith", List.of(new SpecialtyDto(2, "surgery"),
+                                                                 new SpecialtyDto(2, "surgery")));
+        this.mockMvc.perform(post("/api/vets")
+                .content(mapper.writeValueAsString(newVet))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.id").value(1000))
+            .andExpect(jsonPath("$.specialties.length()").value(1))
+            .andExpect(jsonPath("$.specialties[0].name").value("surgery"));
+    }
+
+    @Test
+    void testCreateVetUnknownSpecialty() throws Exception {
+        var newVet = new VetDto(null, "Mary", "Smith", List.of(new SpecialtyDto(99, "unknown")));
+        this.mockMvc.perform(post("/api/vets")
+                .content(mapper.writeValueAsString(newVet))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest());
+        verify(this.petsService, never()).saveVet(any(Vet.class));
+    }
+
+    @Test
+    void testUpdateVetSuccess() throws Exception {
+        given(this.petsService.findVetById(3)).willReturn(linda);
+        given(this.petsService.findSpecialtyById(3)).willReturn(dentistry);
+        var update = new VetDto(3, "Linda", "Douglas", List.of(new SpecialtyDto(3, "dentistry")));
+        this.mockMvc.perform(put("/api/vets/3")
+                .content(mapper.writeValueAsString(update))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isNoContent());
+        verify(this.petsService).saveVet(linda);
+        assertThat(linda.getSpecialties()).containsExactly(dentistry);
+    }
+
+    private static Specialty specialty(int id, String name) {
+        var specialty = new Specialty();
+        specialty.setId(id);
+        specialty.setName(name);
+        return specialty;
+    }
+}
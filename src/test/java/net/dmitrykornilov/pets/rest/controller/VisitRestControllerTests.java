@@ -0,0 +1,163 @@
+package net.dmitrykornilov.pets.rest.controller;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.List;
+
+import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.model.Visit;
+import net.dmitrykornilov.pets.rest.dto.VisitDto;
+import net.dmitrykornilov.pets.service.ApplicationTestConfig;
+import net.dmitrykornilov.pets.service.PetsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ContextConfiguration(classes = ApplicationTestConfig.class)
+@WebAppConfiguration
+class VisitRestControllerTests {
+    @MockBean
+    protected PetsService petsService;
+
+    @Autowired
+    private VisitRestController visitRestController;
+
+    private MockMvc mockMvc;
+
+    private final ObjectMapper mapper = createObjectMapper();
+
+    private Pet pet;
+
+    @BeforeEach
+    void initVisits() {
+        this.mockMvc = MockMvcBuilders.standaloneSetup(visitRestController).build();
+
+        pet = new Pet();
+        pet.setId(7);
+        pet.setName("Samantha");
+    }
+
+    @Test
+    void testListVisitsSuccess() throws Exception {
+        given(this.petsService.findVisitsByPetId(7, null, null, null, null, 20))
+            .willReturn(List.of(visit(4, LocalDate.of(2013, 1, 4), "spayed")));
+        this.mockMvc.perform(get("/api/pets/7/visits")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$[0].id").value(4))
+            .andExpect(jsonPath("$[0].petId").value(7))
+            .andExpect(jsonPath("$[0].description").value("spayed"))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    void testListVisitsLinksNextPage() throws Exception {
+        given(this.petsService.findVisitsByPetId(7, LocalDate.of(2013, 1, 1), null, null, null, 2))
+            .willReturn(List.of(visit(4, LocalDate.of(2013, 1, 4), "spayed"),
+                                visit(1, LocalDate.of(2013, 1, 1), "rabies shot")));
+        this.mockMvc.perform(get("/api/pets/7/visits?from=2013-01-01&limit=2")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("from=2013-01-01")))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("beforeDate=2013-01-01")))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("beforeId=1")))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")));
+    }
+
+    @Test
+    void testListVisitsClampsLimit() throws Exception {
+        given(this.petsService.findVisitsByPetId(7, null, null, null, null, VisitRestController.MAX_PAGE_SIZE))
+            .willReturn(List.of(visit(4, LocalDate.of(2013, 1, 4), "spayed")));
+        this.mockMvc.perform(get("/api/pets/7/visits?limit=100000")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk());
+        verify(this.petsService).findVisitsByPetId(7, null, null, null, null, VisitRestController.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    void testListVisitsNotFound() throws Exception {
+        given(this.petsService.findVisitsByPetId(7, null, null, null, null, 20)).willReturn(List.of());
+        this.mockMvc.perform(get("/api/pets/7/visits")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testCreateVisitSuccess() throws Exception {
+        given(this.petsService.findPetById(7)).willReturn(pet);
+        willAnswer(invocation -> {
+            invocation.<Visit>getArgument(0).setId(1000);
+            return null;
+        }).given(this.petsService).saveVisit(any(Visit.class));
+        var newVisit = new VisitDto(null, null, LocalDate.of(2024, 5, 1), "check-up");
+        this.mockMvc.perform(post("/api/pets/7/visits")
+                .content(mapper.writeValueAsString(newVisit))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.id").value(1000))
+            .andExpect(jsonPath("$.petId").value(7))
+            .andExpect(jsonPath("$.description").value("check-up"));
+    }
+
+    @Test
+    void testCreateVisitError() throws Exception {
+        given(this.petsService.findPetById(7)).willReturn(pet);
+        var newVisit = new VisitDto(null, null, LocalDate.of(2024, 5, 1), null);
+        this.mockMvc.perform(post("/api/pets/7/visits")
+                .content(mapper.writeValueAsString(newVisit))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCreateVisitPetNotFound() throws Exception {
+        var newVisit = new VisitDto(null, null, LocalDate.of(2024, 5, 1), "check-up");
+        this.mockMvc.perform(post("/api/pets/99/visits")
+                .content(mapper.writeValueAsString(newVisit))
+                .accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    private Visit visit(int id, LocalDate date, String description) {
+        var visit = new Visit();
+        visit.setId(id);
+        visit.setDate(date);
+        visit.setDescription(description);
+        visit.setPet(pet);
+        return visit;
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        var mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.setDateFormat(new SimpleDateFormat("yyyy-MM-dd"));
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+}
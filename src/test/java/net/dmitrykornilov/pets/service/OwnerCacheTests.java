@@ -0,0 +1,111 @@
+package net.dmitrykornilov.pets.service;
+
+import net.dmitrykornilov.pets.cache.CacheConfig;
+import net.dmitrykornilov.pets.cache.CacheStatisticsEndpoint;
+import net.dmitrykornilov.pets.model.Owner;
+import net.dmitrykornilov.pets.model.Pet;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "spring.cache.type=caffeine",
+    "spring.cache.cache-names=petTypes,petTypesByName,petTypeLists",
+    "spring.cache.caffeine.spec=maximumSize=100,expireAfterWrite=10m,recordStats",
+    "pets.cache.specs.owners=maximumSize=100,expireAfterWrite=5m,recordStats"
+})
+class OwnerCacheTests {
+
+    @Autowired
+    private PetsService petsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheStatisticsEndpoint cacheStatisticsEndpoint;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldServeOwnerAggregateFromCache() {
+        Owner owner = petsService.findOwnerById(3);
+        long statements = statistics.getPrepareStatementCount();
+
+        Owner cached = petsService.findOwnerById(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(cached).isNotSameAs(owner);
+        assertThat(cached.getId()).isEqualTo(3);
+        assertThat(cached.getPets()).hasSize(2);
+        assertThat(owner.getPets()).hasSize(2);
+    }
+
+    @Test
+    void shouldHandOutCopiesOfCachedOwners() {
+        Owner owner = petsService.findOwnerById(6);
+        String city = owner.getCity();
+        owner.setCity("Elsewhere");
+        owner.getPets().get(0).setName("Renamed");
+
+        Owner cached = petsService.findOwnerById(6);
+        assertThat(cached.getCity()).isEqualTo(city);
+        assertThat(cached.getPets()).extracting(Pet::getName).doesNotContain("Renamed");
+        assertThat(cached.getPets()).allSatisfy(pet -> assertThat(pet.getOwner()).isSameAs(cached));
+    }
+
+    @Test
+    void shouldEvictOwnerOnSave() {
+        Owner owner = petsService.findOwnerById(4);
+        petsService.saveOwner(owner);
+
+        assertThat(cacheManager.getCache(CacheConfig.OWNERS).get(4)).isNull();
+        assertThat(petsService.findOwnerById(4)).isNotSameAs(owner);
+    }
+
+    @Test
+    void shouldEvictOwnerOnPetSave() {
+        Owner owner = petsService.findOwnerById(5);
+        Pet pet = petsService.findPetById(6);
+        petsService.savePet(pet);
+
+        assertThat(cacheManager.getCache(CacheConfig.OWNERS).get(5)).isNull();
+        assertThat(petsService.findOwnerById(5)).isNotSameAs(owner);
+    }
+
+    @Test
+    void shouldEvictOwnersOnPetTypeSave() {
+        petsService.findOwnerById(1);
+        petsService.savePetType(petsService.findPetTypeById(1));
+
+        assertThat(cacheManager.getCache(CacheConfig.OWNERS).get(1)).isNull();
+    }
+
+    @Test
+    void shouldReportCacheStatistics() {
+        petsService.findOwnerById(2);
+        petsService.findOwnerById(2);
+
+        var statistics = cacheStatisticsEndpoint.cache(CacheConfig.OWNERS);
+        assertThat(statistics.size()).isEqualTo(1);
+        assertThat(statistics.hits()).isGreaterThanOrEqualTo(1);
+        assertThat(statistics.hitRatio()).isGreaterThan(0);
+        assertThat(cacheStatisticsEndpoint.caches()).containsKeys(CacheConfig.OWNERS, CacheConfig.PET_TYPES);
+    }
+}
@@ -0,0 +1,91 @@
+package net.dmitrykornilov.pets.service;
+
+import net.dmitrykornilov.pets.cache.CacheConfig;
+import net.dmitrykornilov.pets.model.PetType;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "spring.cache.type=caffeine",
+    "spring.cache.cache-names=petTypes,petTypesByName,petTypeLists",
+    "spring.cache.caffeine.spec=maximumSize=100,expireAfterWrite=10m,recordStats",
+    "pets.cache.specs.owners=maximumSize=100,expireAfterWrite=5m,recordStats"
+})
+class PetTypeCacheTests {
+
+    @Autowired
+    private PetsService petsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        PetType first = petsService.findPetTypeById(2);
+        petsService.findAllPetTypes();
+        petsService.findPetTypes();
+        petsService.findPetTypeByName("dog");
+        long statements = statistics.getPrepareStatementCount();
+
+        PetType cached = petsService.findPetTypeById(2);
+        assertThat(cached).isNotSameAs(first);
+        assertThat(cached.getName()).isEqualTo(first.getName());
+        petsService.findAllPetTypes();
+        petsService.findPetTypes();
+        petsService.findPetTypeByName("dog");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+    }
+
+    @Test
+    void shouldNotCacheMissingPetTypes() {
+        assertThat(petsService.findPetTypeById(999)).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.PET_TYPES).get(999)).isNull();
+    }
+
+    @Test
+    void shouldEvictOnSave() {
+        PetType petType = petsService.findPetTypeById(2);
+        petsService.findAllPetTypes();
+
+        petsService.savePetType(petType);
+
+        assertThat(cacheManager.getCache(CacheConfig.PET_TYPES).get(2)).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.PET_TYPE_LISTS).get("all")).isNull();
+        assertThat(petsService.findPetTypeById(2).getName()).isEqualTo("dog");
+    }
+
+    @Test
+    void shouldExportCacheMetrics() {
+        petsService.findPetTypeById(3);
+        petsService.findPetTypeById(3);
+
+        var hits = meterRegistry.find("cache.gets").tag("cache", CacheConfig.PET_TYPES).tag("result", "hit")
+                .functionCounter();
+        assertThat(hits).isNotNull();
+        assertThat(hits.count()).isGreaterThanOrEqualTo(1);
+    }
+}
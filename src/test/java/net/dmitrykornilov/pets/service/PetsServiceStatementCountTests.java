@@ -0,0 +1,169 @@
+package net.dmitrykornilov.pets.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import net.dmitrykornilov.pets.model.Owner;
+import net.dmitrykornilov.pets.model.Pet;
+import net.dmitrykornilov.pets.model.PetType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the fetch plans of the read methods: every method must run a fixed number of SQL statements
+ * regardless of how many rows it returns, and the returned graphs must be usable outside the transaction.
+ */
+@SpringBootTest
+class PetsServiceStatementCountTests {
+
+    @Autowired
+    private PetsService petsService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void resetStatistics() {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void findAllOwnersRunsOneStatement() {
+        assertStatements(1, () -> touchOwners(petsService.findAllOwners()));
+    }
+
+    @Test
+    void findOwnersPageRunsTwoStatements() {
+        assertStatements(2, () -> touchOwners(petsService.findOwnersPage(0, 5)));
+    }
+
+    @Test
+    void findOwnerByIdRunsOneStatement() {
+        assertStatements(1, () -> touchOwner(petsService.findOwnerById(6)));
+    }
+
+    @Test
+    void findOwnerByLastNameRunsOneStatement() {
+        assertStatements(1, () -> touchOwners(petsService.findOwnerByLastName("Davis")));
+    }
+
+    @Test
+    void searchOwnersRunsOneStatement() {
+        assertStatements(1, () -> touchOwners(petsService.searchOwners("d", 0, 5)));
+    }
+
+    @Test
+    void findAllPetsRunsOneStatement() {
+        assertStatements(1, () -> petsService.findAllPets().forEach(this::touchPet));
+    }
+
+    @Test
+    void findPetByIdRunsOneStatement() {
+        assertStatements(1, () -> touchPet(petsService.findPetById(7)));
+    }
+
+    @Test
+    void streamAllPetsRunsOneStatement() {
+        assertStatements(1, () -> petsService.streamAllPets(pet -> {
+            assertThat(pet.getOwner().getId()).isNotNull();
+            assertThat(pet.getType().getName()).isNotNull();
+        }));
+    }
+
+    @Test
+    void findVisitsByPetIdRunsOneStatement() {
+        assertStatements(1, () -> assertThat(petsService.findVisitsByPetId(7, null, null, null, null, 20)).hasSize(2));
+    }
+
+    @Test
+    void findVetsWithSpecialtiesRunsNoStatement() {
+        assertStatements(0, () -> assertThat(petsService.findVetsWithSpecialties(List.of(2, 3))).hasSize(1));
+    }
+
+    @Test
+    void findNextFreeSlotRunsNoStatement() {
+        assertStatements(0, () -> petsService.findNextFreeSlot(1, LocalDateTime.now(), Duration.ofMinutes(30)));
+    }
+
+    @Test
+    void petTypeLookupsRunOneStatementEach() {
+        assertStatements(1, petsService::findAllPetTypes);
+        assertStatements(1, petsService::findPetTypes);
+        assertStatements(1, () -> petsService.findPetTypeById(1));
+        assertStatements(1, () -> petsService.findPetTypeByName("cat"));
+    }
+
+    @Test
+    @Transactional
+    void saveOwnersBatchesInserts() {
+        PetType cat = petsService.findPetTypeById(1);
+        List<Owner> owners = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Owner owner = new Owner();
+            owner.setFirstName("Batch");
+            owner.setLastName("Owner" + i);
+            owner.setAddress("1 Batch Street");
+            owner.setCity("Madison");
+            owner.setTelephone("6085550000");
+            for (int j = 0; j < 2; j++) {
+                Pet pet = new Pet();
+                pet.setName("Pet" + j);
+                pet.setType(cat);
+                pet.setBirthDate(LocalDate.now());
+                owner.addPet(pet);
+            }
+            owners.add(owner);
+        }
+        // one call per id sequence, then one batched insert per table
+        assertStatements(4, () -> {
+            petsService.saveOwners(owners);
+            entityManager.flush();
+        });
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(60);
+    }
+
+    private void assertStatements(long expected, Runnable action) {
+        statistics.clear();
+        action.run();
+        assertThat(statistics.getPrepareStatementCount()).as("prepared statements").isEqualTo(expected);
+    }
+
+    private void assertStatements(long expected, Supplier<?> action) {
+        assertStatements(expected, (Runnable) action::get);
+    }
+
+    private void touchOwners(Collection<Owner> owners) {
+        assertThat(owners).isNotEmpty();
+        owners.forEach(this::touchOwner);
+    }
+
+    private void touchOwner(Owner owner) {
+        owner.getPets().forEach(pet -> assertThat(pet.getType().getName()).isNotNull());
+    }
+
+    private void touchPet(Pet pet) {
+        assertThat(pet.getType().getName()).isNotNull();
+        assertThat(pet.getOwner().getLastName()).isNotNull();
+    }
+}
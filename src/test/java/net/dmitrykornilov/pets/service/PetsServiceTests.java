@@ -1,19 +1,38 @@
 package net.dmitrykornilov.pets.service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import net.dmitrykornilov.pets.model.Appointment;
 import net.dmitrykornilov.pets.model.BaseEntity;
 import net.dmitrykornilov.pets.model.Owner;
 import net.dmitrykornilov.pets.model.Pet;
 import net.dmitrykornilov.pets.model.PetType;
+import net.dmitrykornilov.pets.model.Specialty;
+import net.dmitrykornilov.pets.model.Vet;
+import net.dmitrykornilov.pets.model.Visit;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.transaction.annotation.Transactional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 @SpringBootTest
 class PetsServiceTests {
@@ -21,6 +40,21 @@ class PetsServiceTests {
     @Autowired
     protected PetsService petsService;
 
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private AppointmentSchedule appointmentSchedule;
+
+    @Autowired
+    private OwnerSearchIndex ownerSearchIndex;
+
+    @Autowired
+    private VetSpecialtyIndex vetSpecialtyIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Test
     void shouldFindOwnersByLastName() {
         Collection<Owner> owners = this.petsService.findOwnerByLastName("Davis");
@@ -58,6 +92,39 @@ class PetsServiceTests {
         assertThat(owners.size()).isEqualTo(found + 1);
     }
 
+    @Test
+    @Transactional
+    void shouldInsertOwnersWithPets() {
+        int found = this.petsService.findOwnerByLastName("Schultz").size();
+        PetType cat = this.petsService.findPetTypeById(1);
+
+        List<Owner> owners = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Owner owner = new Owner();
+            owner.setFirstName("Sam" + i);
+            owner.setLastName("Schultz");
+            owner.setAddress("4, Evans Street");
+            owner.setCity("Wollongong");
+            owner.setTelephone("4444444444");
+            Pet pet = new Pet();
+            pet.setName("Tom" + i);
+            pet.setType(cat);
+            pet.setBirthDate(LocalDate.now());
+            owner.addPet(pet);
+            owners.add(owner);
+        }
+        this.petsService.saveOwners(owners);
+
+        assertThat(owners).allSatisfy(owner -> {
+            assertThat(owner.getId()).isNotNull();
+            assertThat(owner.getPets().get(0).getId()).isNotNull();
+        });
+        Collection<Owner> saved = this.petsService.findOwnerByLastName("Schultz");
+        assertThat(saved).hasSize(found + 3);
+        assertThat(saved).filteredOn(owner -> owner.getFirstName().startsWith("Sam"))
+            .allSatisfy(owner -> assertThat(owner.getPets()).hasSize(1));
+    }
+
     @Test
     @Transactional
     void shouldUpdateOwner() {
@@ -73,6 +140,57 @@ class PetsServiceTests {
         assertThat(owner.getLastName()).isEqualTo(newLastName);
     }
 
+    @Test
+    @Transactional
+    void shouldUpdateAndDeleteInPlace() {
+        int version = this.petsService.findOwnerById(2).getVersion();
+        Owner owner = new Owner();
+        owner.setId(2);
+        owner.setFirstName("Betty");
+        owner.setLastName("Davis");
+        owner.setAddress("638 Cardinal Ave.");
+        owner.setCity("Sun Prairie");
+        owner.setTelephone("6085551749");
+        assertThat(this.petsService.updateOwnerFields(owner)).isEqualTo(1);
+
+        Pet pet = new Pet();
+        pet.setId(3);
+        pet.setName("Rosie");
+        pet.setBirthDate(LocalDate.of(2011, 4, 17));
+        pet.setType(this.petsService.findPetTypeById(1));
+        assertThat(this.petsService.updatePetFields(pet)).isEqualTo(1);
+        assertThat(this.petsService.deleteOwnerById(10)).isEqualTo(1);
+        entityManager.clear();
+
+        Owner updated = this.petsService.findOwnerById(2);
+        assertThat(updated.getCity()).isEqualTo("Sun Prairie");
+        assertThat(updated.getVersion()).isEqualTo(version + 1);
+        Owner withPet = this.petsService.findOwnerById(3);
+        assertThat(withPet.getPet("Rosie").getType().getId()).isEqualTo(1);
+        assertThat(this.petsService.findOwnerById(10)).isNull();
+        assertThat(this.petsService.findPetById(12)).isNull();
+
+        owner.setId(999);
+        assertThat(this.petsService.updateOwnerFields(owner)).isZero();
+        pet.setId(999);
+        assertThat(this.petsService.updatePetFields(pet)).isZero();
+        assertThat(this.petsService.deletePetById(999)).isZero();
+        assertThat(this.petsService.deleteOwnerById(999)).isZero();
+        assertThat(this.petsService.deletePetTypeById(999)).isZero();
+    }
+
+    @Test
+    @Transactional
+    void shouldRejectUpdateOfStaleOwner() {
+        Owner owner = this.petsService.findOwnerById(1);
+        entityManager.clear();
+        owner.setVersion(owner.getVersion() - 1);
+        owner.setCity("Stale");
+
+        assertThatThrownBy(() -> this.petsService.saveOwner(owner))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
     @Test
     void shouldFindPetWithCorrectId() {
         Pet pet7 = this.petsService.findPetById(7);
@@ -118,6 +236,28 @@ class PetsServiceTests {
         assertThat(pet7.getName()).isEqualTo(newName);
     }
 
+    @Test
+    void shouldFindPetOfOwner() {
+        Pet pet = this.petsService.findPetByOwnerIdAndId(6, 7);
+        assertThat(pet.getName()).startsWith("Samantha");
+        assertThat(pet.getType().getName()).isEqualTo("cat");
+        assertThat(pet.getOwner().getId()).isEqualTo(6);
+
+        assertThat(this.petsService.findPetByOwnerIdAndId(1, 7)).isNull();
+        assertThat(this.petsService.existsOwnerAndPet(1, 7)).isTrue();
+        assertThat(this.petsService.existsOwnerAndPet(999, 7)).isFalse();
+        assertThat(this.petsService.existsOwnerAndPet(6, 999)).isFalse();
+    }
+
+    @Test
+    void shouldFindPetsAndOwnersByIds() {
+        assertThat(this.petsService.findPetsByIds(List.of(8, 999, 3, 8)))
+            .extracting(Pet::getId).containsExactly(3, 8);
+        List<Owner> owners = this.petsService.findOwnersByIds(List.of(6, 3, 999));
+        assertThat(owners).extracting(Owner::getId).containsExactly(3, 6);
+        assertThat(owners.get(1).getPets()).hasSize(2);
+    }
+
     @Test
     void shouldFindAllPets(){
         Collection<Pet> pets = this.petsService.findAllPets();
@@ -127,6 +267,13 @@ class PetsServiceTests {
         assertThat(pet3.getName()).isEqualTo("Rosy");
     }
 
+    @Test
+    void shouldStreamAllPetsInIdOrder(){
+        List<Integer> ids = new ArrayList<>();
+        this.petsService.streamAllPets(pet -> ids.add(pet.getId()));
+        assertThat(ids).hasSize(13).isSorted();
+    }
+
     @Test
     @Transactional
     void shouldDeletePet(){
@@ -149,6 +296,234 @@ class PetsServiceTests {
         assertThat(owner3.getFirstName()).isEqualTo("Eduardo");
     }
 
+    @Test
+    void shouldSearchOwnersByPrefix(){
+        // last name matches rank ahead of first name matches
+        assertThat(this.petsService.searchOwners("dav", 0, 10)).extracting(Owner::getId).containsExactly(2, 4, 9);
+        assertThat(this.petsService.searchOwners("dav", 1, 1)).extracting(Owner::getId).containsExactly(4);
+        assertThat(this.petsService.searchOwners("dav", 2, 10)).extracting(Owner::getId).containsExactly(9);
+        assertThat(this.petsService.searchOwners("dav", 3, 10)).isEmpty();
+        assertThat(this.petsService.searchOwners("Madison DAV", 0, 10)).extracting(Owner::getId).containsExactly(9);
+        assertThat(this.petsService.searchOwners("mct", 0, 10)).extracting(Owner::getId).containsExactly(5);
+        assertThat(this.petsService.searchOwners("6085551", 0, 10)).extracting(Owner::getId).containsExactly(1, 2);
+        assertThat(this.petsService.searchOwners("davis x", 0, 10)).isEmpty();
+        assertThat(this.petsService.searchOwners("  ", 0, 10)).isEmpty();
+    }
+
+    // not transactional: the search index follows writes only once they commit
+    @Test
+    void shouldUpdateSearchIndexOnCommit(){
+        Owner owner = new Owner();
+        owner.setFirstName("Zoë");
+        owner.setLastName("Zylstra");
+        owner.setAddress("4, Evans Street");
+        owner.setCity("Wollongong");
+        owner.setTelephone("4444444444");
+        this.petsService.saveOwner(owner);
+        try {
+            assertThat(this.petsService.searchOwners("zoe zyl", 0, 10)).extracting(Owner::getId)
+                .containsExactly(owner.getId());
+
+            Owner saved = this.petsService.findOwnerById(owner.getId());
+            saved.setLastName("Ziegler");
+            this.petsService.saveOwner(saved);
+            assertThat(this.petsService.searchOwners("zyl", 0, 10)).isEmpty();
+            assertThat(this.petsService.searchOwners("zieg", 0, 10)).extracting(Owner::getId)
+                .containsExactly(owner.getId());
+        } finally {
+            this.petsService.deleteOwner(this.petsService.findOwnerById(owner.getId()));
+        }
+        assertThat(this.petsService.searchOwners("zieg", 0, 10)).isEmpty();
+    }
+
+    // the listeners are called directly, in the order in which those of two concurrent writes may run
+    @Test
+    void shouldIgnoreStaleIndexWrites() {
+        Owner owner = new Owner();
+        owner.setId(9999);
+        owner.setVersion(2);
+        owner.setFirstName("Zoë");
+        owner.setLastName("Ziegler");
+        Owner stale = new Owner();
+        stale.setId(9999);
+        stale.setVersion(1);
+        stale.setFirstName("Zoë");
+        stale.setLastName("Zylstra");
+        this.ownerSearchIndex.onOwnerSaved(new OwnerSearchIndex.OwnerSaved(owner));
+        this.ownerSearchIndex.onOwnerSaved(new OwnerSearchIndex.OwnerSaved(stale));
+        try {
+            assertThat(this.ownerSearchIndex.search("zyl", 0, 10)).isEmpty();
+            assertThat(this.ownerSearchIndex.search("zieg", 0, 10)).containsExactly(9999);
+        } finally {
+            this.ownerSearchIndex.onOwnerDeleted(new OwnerSearchIndex.OwnerDeleted(9999));
+        }
+
+        int version = this.petsService.findVetById(2).getVersion();
+        Vet vet = new Vet();
+        vet.setId(2);
+        vet.setVersion(version + 1);
+        vet.setFirstName("Helen");
+        vet.setLastName("Leary");
+        Vet staleVet = new Vet();
+        staleVet.setId(2);
+        staleVet.setVersion(version);
+        staleVet.setFirstName("Helen");
+        staleVet.setLastName("Leary");
+        staleVet.addSpecialty(this.petsService.findSpecialtyById(3));
+        this.vetSpecialtyIndex.onVetSaved(new VetSpecialtyIndex.VetSaved(vet));
+        this.vetSpecialtyIndex.onVetSaved(new VetSpecialtyIndex.VetSaved(staleVet));
+        try {
+            assertThat(this.petsService.findVetsWithSpecialties(List.of(3))).extracting(Vet::getId)
+                .doesNotContain(2);
+        } finally {
+            this.vetSpecialtyIndex.reload();
+        }
+    }
+
+    @Test
+    void shouldPublishChangesOnCommit() throws InterruptedException {
+        long before = this.changeFeed.lastSequence();
+        PetType petType = new PetType();
+        petType.setName("axolotl");
+        this.petsService.savePetType(petType);
+        this.petsService.deletePetType(petType);
+
+        assertThat(this.changeFeed.await(before, 10, Duration.ZERO))
+            .extracting(ChangeFeed.Change::entity, ChangeFeed.Change::id, ChangeFeed.Change::action)
+            .containsExactly(tuple(ChangeFeed.Entity.PET_TYPE, petType.getId(), ChangeFeed.Action.CREATED),
+                             tuple(ChangeFeed.Entity.PET_TYPE, petType.getId(), ChangeFeed.Action.DELETED));
+    }
+
+    @Test
+    void shouldPublishChangesOfCascadedPets() throws InterruptedException {
+        long before = this.changeFeed.lastSequence();
+        Owner owner = new Owner();
+        owner.setFirstName("Ada");
+        owner.setLastName("Cascade");
+        owner.setAddress("1 Main St.");
+        owner.setCity("Madison");
+        owner.setTelephone("6085550000");
+        owner.addPet(pet("Leo"));
+        this.petsService.saveOwner(owner);
+        Owner saved = this.petsService.findOwnerById(owner.getId());
+        saved.addPet(pet("Basil"));
+        this.petsService.saveOwner(saved);
+        saved = this.petsService.findOwnerById(owner.getId());
+        int leo = saved.getPet("Leo").getId();
+        int basil = saved.getPet("Basil").getId();
+        this.petsService.deleteOwner(saved);
+
+        assertThat(this.changeFeed.await(before, 10, Duration.ZERO))
+            .extracting(ChangeFeed.Change::entity, ChangeFeed.Change::id, ChangeFeed.Change::action)
+            .containsExactly(tuple(ChangeFeed.Entity.OWNER, owner.getId(), ChangeFeed.Action.CREATED),
+                             tuple(ChangeFeed.Entity.PET, leo, ChangeFeed.Action.CREATED),
+                             tuple(ChangeFeed.Entity.OWNER, owner.getId(), ChangeFeed.Action.UPDATED),
+                             tuple(ChangeFeed.Entity.PET, basil, ChangeFeed.Action.CREATED),
+                             tuple(ChangeFeed.Entity.OWNER, owner.getId(), ChangeFeed.Action.DELETED),
+                             tuple(ChangeFeed.Entity.PET, leo, ChangeFeed.Action.DELETED),
+                             tuple(ChangeFeed.Entity.PET, basil, ChangeFeed.Action.DELETED));
+    }
+
+    @Test
+    void shouldPublishDeletesOfPetsWithOwnerDeletedById() throws InterruptedException {
+        Owner owner = new Owner();
+        owner.setFirstName("Ada");
+        owner.setLastName("Cascade");
+        owner.setAddress("1 Main St.");
+        owner.setCity("Madison");
+        owner.setTelephone("6085550000");
+        owner.addPet(pet("Leo"));
+        this.petsService.saveOwner(owner);
+        int leo = owner.getPet("Leo").getId();
+        long before = this.changeFeed.lastSequence();
+        assertThat(this.petsService.deleteOwnerById(owner.getId())).isEqualTo(1);
+
+        assertThat(this.changeFeed.await(before, 10, Duration.ZERO))
+            .extracting(ChangeFeed.Change::entity, ChangeFeed.Change::id, ChangeFeed.Change::action)
+            .containsExactly(tuple(ChangeFeed.Entity.OWNER, owner.getId(), ChangeFeed.Action.DELETED),
+                             tuple(ChangeFeed.Entity.PET, leo, ChangeFeed.Action.DELETED));
+    }
+
+    @Test
+    void shouldReportChangesOverwrittenInFeed() throws InterruptedException {
+        var feed = new ChangeFeed(2);
+        for (int id = 1; id <= 3; id++) {
+            feed.onChanged(new ChangeFeed.Changed(ChangeFeed.Entity.OWNER, id, ChangeFeed.Action.UPDATED));
+        }
+        assertThat(feed.await(1, 10, Duration.ZERO)).extracting(ChangeFeed.Change::id).containsExactly(2, 3);
+        assertThat(feed.await(3, 10, Duration.ZERO)).isEmpty();
+        assertThatThrownBy(() -> feed.await(0, 10, Duration.ZERO)).isInstanceOf(ChangeFeed.GapException.class);
+        assertThatThrownBy(() -> feed.await(4, 10, Duration.ZERO)).isInstanceOf(ChangeFeed.GapException.class);
+    }
+
+    @Test
+    @Transactional
+    void shouldFindChangesSinceSyncToken() throws InterruptedException {
+        Instant since = Instant.now();
+        Thread.sleep(1);
+        Pet pet7 = this.petsService.findPetById(7);
+        pet7.setName("Samantha II");
+        this.petsService.savePet(pet7);
+        this.petsService.deletePet(this.petsService.findPetById(1));
+        this.entityManager.flush();
+
+        ChangeSet<Pet> pets = this.petsService.findPetsChangedSince(since);
+        assertThat(pets.changed()).extracting(Pet::getId).containsExactly(7);
+        assertThat(pets.deletedIds()).containsExactly(1);
+        assertThat(pets.syncedAt()).isBefore(Instant.now());
+
+        // owners change with their pets, and the owner of a deleted pet too
+        ChangeSet<Owner> owners = this.petsService.findOwnersChangedSince(since);
+        assertThat(owners.changed()).extracting(Owner::getId).containsExactly(1, 6);
+        assertThat(owners.deletedIds()).isEmpty();
+
+        assertThat(this.petsService.findPetTypesChangedSince(since).changed()).isEmpty();
+        assertThat(this.petsService.findPetTypesChangedSince(Instant.EPOCH).changed()).extracting(PetType::getName)
+            .contains("cat", "dog");
+        assertThatThrownBy(() -> this.petsService.findPetsChangedSince(since.minus(Duration.ofDays(31))))
+            .isInstanceOf(ChangeSet.ExpiredException.class);
+    }
+
+    @Test
+    void shouldFindOwnersPageAfterCursor(){
+        Collection<Owner> firstPage = this.petsService.findOwnersPage(0, 3);
+        assertThat(firstPage).extracting(Owner::getId).containsExactly(1, 2, 3);
+
+        Collection<Owner> nextPage = this.petsService.findOwnersPage(3, 3);
+        assertThat(nextPage).extracting(Owner::getId).containsExactly(4, 5, 6);
+        assertThat(nextPage.iterator().next().getPets()).isNotEmpty();
+
+        assertThat(this.petsService.findOwnersPage(10, 3)).isEmpty();
+    }
+
+    @Test
+    void shouldFindVisitsPageBeforeCursor(){
+        List<Visit> firstPage = this.petsService.findVisitsByPetId(7, null, null, null, null, 1);
+        assertThat(firstPage).extracting(Visit::getId).containsExactly(4);
+
+        Visit last = firstPage.get(0);
+        List<Visit> nextPage = this.petsService.findVisitsByPetId(7, null, null, last.getDate(), last.getId(), 1);
+        assertThat(nextPage).extracting(Visit::getId).containsExactly(1);
+
+        assertThat(this.petsService.findVisitsByPetId(7, LocalDate.of(2013, 1, 2), null, null, null, 10))
+                .extracting(Visit::getId).containsExactly(4);
+        assertThat(this.petsService.findVisitsByPetId(6, null, null, null, null, 10)).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void shouldAddVisitToPet(){
+        Pet pet = this.petsService.findPetById(7);
+        Visit visit = new Visit();
+        visit.setPet(pet);
+        visit.setDescription("check-up");
+        this.petsService.saveVisit(visit);
+        assertThat(visit.getId()).isNotNull();
+
+        assertThat(this.petsService.findVisitsByPetId(7, null, null, null, null, 10))
+                .extracting(Visit::getId).containsExactly(visit.getId(), 4, 1);
+    }
+
     @Test
     @Transactional
     void shouldDeleteOwner(){
@@ -162,6 +537,124 @@ class PetsServiceTests {
         assertThat(owner).isNull();
     }
 
+    @Test
+    void shouldFindVetsWithAllSpecialties(){
+        assertThat(this.petsService.findVetsWithSpecialties(List.of())).extracting(Vet::getId)
+            .containsExactly(1, 2, 3, 4, 5, 6);
+        assertThat(this.petsService.findVetsWithSpecialties(List.of(2))).extracting(Vet::getId)
+            .containsExactly(3, 4);
+        assertThat(this.petsService.findVetsWithSpecialties(List.of(2, 3))).extracting(Vet::getId)
+            .containsExactly(3);
+        assertThat(this.petsService.findVetsWithSpecialties(List.of(1, 3))).isEmpty();
+        assertThat(this.petsService.findVetsWithSpecialties(List.of(99))).isEmpty();
+    }
+
+    // not transactional: the specialty index follows writes only once they commit
+    @Test
+    void shouldUpdateSpecialtyIndexOnCommit(){
+        Vet vet = new Vet();
+        vet.setFirstName("Mary");
+        vet.setLastName("Index");
+        vet.addSpecialty(this.petsService.findSpecialtyById(1));
+        vet.addSpecialty(this.petsService.findSpecialtyById(3));
+        this.petsService.saveVet(vet);
+        try {
+            assertThat(this.petsService.findVetsWithSpecialties(List.of(1, 3))).extracting(Vet::getId)
+                .containsExactly(vet.getId());
+
+            Vet saved = this.petsService.findVetById(vet.getId());
+            saved.setSpecialties(List.of(this.petsService.findSpecialtyById(2)));
+            this.petsService.saveVet(saved);
+            assertThat(this.petsService.findVetsWithSpecialties(List.of(1, 3))).isEmpty();
+            assertThat(this.petsService.findVetsWithSpecialties(List.of(2))).extracting(Vet::getId)
+                .containsExactly(3, 4, vet.getId());
+            assertThat(this.petsService.findVetsWithSpecialties(List.of(2)).get(2).getSpecialties())
+                .extracting(Specialty::getName).containsExactly("surgery");
+        } finally {
+            this.petsService.deleteVet(this.petsService.findVetById(vet.getId()));
+        }
+        assertThat(this.petsService.findVetsWithSpecialties(List.of(2))).extracting(Vet::getId)
+            .containsExactly(3, 4);
+    }
+
+    // not transactional: bookings commit on their own
+    @Test
+    void shouldRejectOverlappingAppointments(){
+        LocalDateTime nine = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS).withHour(9);
+        List<Appointment> booked = new ArrayList<>();
+        try {
+            Appointment first = appointment(1, 1, nine, nine.plusMinutes(30));
+            assertThat(this.petsService.bookAppointment(first)).isTrue();
+            booked.add(first);
+            assertThat(first.getId()).isNotNull();
+
+            // the same vet, and the same pet with another vet
+            assertThat(this.petsService.bookAppointment(appointment(1, 2, nine.plusMinutes(15), nine.plusMinutes(45))))
+                .isFalse();
+            assertThat(this.petsService.bookAppointment(appointment(2, 1, nine.minusMinutes(15), nine.plusMinutes(15))))
+                .isFalse();
+
+            // back to back is fine
+            Appointment second = appointment(1, 2, nine.plusMinutes(30), nine.plusMinutes(60));
+            assertThat(this.petsService.bookAppointment(second)).isTrue();
+            booked.add(second);
+
+            assertThat(this.petsService.findNextFreeSlot(1, nine, Duration.ofMinutes(15))).isEqualTo(nine.plusMinutes(60));
+            assertThat(this.petsService.findNextFreeSlot(1, nine.minusMinutes(30), Duration.ofMinutes(30)))
+                .isEqualTo(nine.minusMinutes(30));
+            assertThat(this.petsService.findNextFreeSlot(1, nine.minusMinutes(20), Duration.ofMinutes(30)))
+                .isEqualTo(nine.plusMinutes(60));
+            assertThat(this.petsService.findAppointmentsByVetId(1, nine, nine.plusDays(1)))
+                .extracting(Appointment::getId).containsExactly(first.getId(), second.getId());
+
+            this.petsService.cancelAppointment(this.petsService.findAppointmentById(first.getId()));
+            booked.remove(first);
+            assertThat(this.petsService.findNextFreeSlot(1, nine, Duration.ofMinutes(15))).isEqualTo(nine);
+        } finally {
+            booked.forEach(appointment -> this.petsService.cancelAppointment(appointment));
+        }
+    }
+
+    @Test
+    void shouldPruneEndedAppointments() {
+        LocalDateTime start = LocalDateTime.now().minusHours(2).truncatedTo(ChronoUnit.MINUTES);
+        Appointment ended = appointment(3, 3, start, start.plusHours(1));
+        assertThat(this.petsService.bookAppointment(ended)).isTrue();
+        try {
+            assertThat(this.petsService.findNextFreeSlot(3, start, Duration.ofMinutes(30))).isEqualTo(start.plusHours(1));
+
+            this.appointmentSchedule.prune();
+
+            assertThat(this.petsService.findNextFreeSlot(3, start, Duration.ofMinutes(30))).isEqualTo(start);
+        } finally {
+            this.petsService.cancelAppointment(ended);
+        }
+    }
+
+    @Test
+    void shouldBookContendedSlotOnce() throws Exception {
+        LocalDateTime ten = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.DAYS).withHour(10);
+        List<Callable<Appointment>> bookings = new ArrayList<>();
+        for (int petId = 1; petId <= 8; petId++) {
+            Appointment appointment = appointment(2, petId, ten, ten.plusMinutes(30));
+            bookings.add(() -> this.petsService.bookAppointment(appointment) ? appointment : null);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(bookings.size());
+        List<Appointment> booked = new ArrayList<>();
+        try {
+            for (Future<Appointment> result : executor.invokeAll(bookings)) {
+                if (result.get() != null) {
+                    booked.add(result.get());
+                }
+            }
+            assertThat(booked).hasSize(1);
+            assertThat(this.petsService.findAppointmentsByVetId(2, ten, ten.plusHours(1))).hasSize(1);
+        } finally {
+            executor.shutdown();
+            booked.forEach(appointment -> this.petsService.cancelAppointment(appointment));
+        }
+    }
+
     @Test
     void shouldFindPetTypeById(){
     	PetType petType = this.petsService.findPetTypeById(1);
@@ -234,4 +727,21 @@ class PetsServiceTests {
         }
         throw new ObjectRetrievalFailureException(entityClass, entityId);
     }
+
+    private Appointment appointment(int vetId, int petId, LocalDateTime start, LocalDateTime end) {
+        Appointment appointment = new Appointment();
+        appointment.setVet(this.petsService.findVetById(vetId));
+        appointment.setPet(this.petsService.findPetById(petId));
+        appointment.setStart(start);
+        appointment.setEnd(end);
+        return appointment;
+    }
+
+    private Pet pet(String name) {
+        Pet pet = new Pet();
+        pet.setName(name);
+        pet.setBirthDate(LocalDate.of(2020, 1, 1));
+        pet.setType(this.petsService.findPetTypeById(1));
+        return pet;
+    }
 }
@@ -0,0 +1,161 @@
+package net.dmitrykornilov.pets.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import net.dmitrykornilov.pets.model.Pet;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightAspectTests {
+    private static final int CALLERS = 8;
+
+    public static class Loader {
+        final AtomicInteger calls = new AtomicInteger();
+
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @SingleFlight
+        public String load(int id) throws InterruptedException {
+            calls.incrementAndGet();
+            release.await();
+            if (id < 0) {
+                throw new IllegalArgumentException("negative id");
+            }
+            return "owner " + id;
+        }
+
+        @CopyResult
+        @SingleFlight
+        public Pet loadPet(int id) throws InterruptedException {
+            calls.incrementAndGet();
+            release.await();
+            var pet = new Pet();
+            pet.setId(id);
+            pet.setName("Leo");
+            return pet;
+        }
+    }
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldShareOneCallAmongConcurrentCallers() throws Exception {
+        var loader = new Loader();
+        Loader proxy = proxy(loader);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> proxy.load(1)));
+            }
+            awaitCoalesced(CALLERS - 1);
+            loader.release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("owner 1");
+            }
+            assertThat(loader.calls).hasValue(1);
+            assertThat(registry.get(SingleFlightAspect.METER).tag("role", "leader").counter().count()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldHandOutCopiesToCoalescedCallers() throws Exception {
+        var loader = new Loader();
+        Loader proxy = proxy(loader);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Pet> first = executor.submit(() -> proxy.loadPet(1));
+            Future<Pet> second = executor.submit(() -> proxy.loadPet(1));
+            awaitCoalesced(1);
+            loader.release.countDown();
+            Pet pet = first.get(5, TimeUnit.SECONDS);
+            pet.setName("Basil");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isNotSameAs(pet)
+                .extracting(Pet::getName).isEqualTo("Leo");
+            assertThat(loader.calls).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldLetPinnedCallersCallThrough() throws Exception {
+        var loader = new Loader();
+        Loader proxy = proxy(loader);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> unpinned = executor.submit(() -> proxy.load(1));
+            Future<String> pinned = executor.submit(() -> {
+                var request = new MockHttpServletRequest();
+                request.setCookies(new Cookie("pets-primary-until", Long.toString(Long.MAX_VALUE)));
+                RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+                try {
+                    return proxy.load(1);
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            });
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (loader.calls.get() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            loader.release.countDown();
+            assertThat(unpinned.get(5, TimeUnit.SECONDS)).isEqualTo("owner 1");
+            assertThat(pinned.get(5, TimeUnit.SECONDS)).isEqualTo("owner 1");
+            assertThat(loader.calls).hasValue(2);
+            assertThat(coalesced()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldNotCoalesceDifferentArgumentsOrLaterCalls() throws Exception {
+        var loader = new Loader();
+        loader.release.countDown();
+        Loader proxy = proxy(loader);
+        proxy.load(1);
+        proxy.load(1);
+        proxy.load(2);
+        assertThat(loader.calls).hasValue(3);
+        assertThatThrownBy(() -> proxy.load(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Loader proxy(Loader loader) {
+        var factory = new AspectJProxyFactory(loader);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new CopyResultAspect());
+        factory.addAspect(new SingleFlightAspect(registry));
+        return factory.getProxy();
+    }
+
+    private void awaitCoalesced(int callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalesced() < callers && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(coalesced()).isEqualTo(callers);
+    }
+
+    private double coalesced() {
+        var counter = registry.find(SingleFlightAspect.METER).tag("role", "coalesced").counter();
+        return counter == null ? 0 : counter.count();
+    }
+}